@@ -0,0 +1,35 @@
+package com.kai.test_practice.benchmark;
+
+import com.kai.test_practice.TestPracticeApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// 在 benchmark 中啟動應用程式的共用設定：關閉 SQL 輸出與 devtools，避免干擾量測結果
+final class BenchmarkApplication {
+
+    private BenchmarkApplication() {
+    }
+
+    static ConfigurableApplicationContext start(WebApplicationType webApplicationType, String... properties) {
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        // 以命令列參數傳入，才能覆蓋 application.yaml 中的設定
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                // 量測的是請求本身的成本，不讓准入控制拒絕 benchmark 的請求
+                "--app.admission.enabled=false",
+                "--spring.datasource.url=jdbc:h2:mem:benchmark-" + System.nanoTime()));
+        Arrays.stream(properties).map(property -> "--" + property).forEach(args::add);
+
+        return new SpringApplicationBuilder(TestPracticeApplication.class)
+                .web(webApplicationType)
+                .run(args.toArray(String[]::new));
+    }
+}
@@ -0,0 +1,107 @@
+package com.kai.test_practice.benchmark;
+
+import com.kai.test_practice.cache.BloomEmailFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// 一千萬個 email 的 Bloom filter：預熱時間、記憶體用量、實際誤判率與每次查詢的成本
+// 與資料庫查詢的比較見 UserServiceBenchmark 的 emailFilterEnabled 參數
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EmailFilterBenchmark {
+
+    private static final int PROBES = 1 << 16;
+
+    @Param({"10000000"})
+    private int emails;
+
+    @Param({"0.01", "0.001"})
+    private double falsePositiveRate;
+
+    private BloomEmailFilter filter;
+    private String[] present;
+    private String[] absent;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        filter = newFilter();
+        long start = System.nanoTime();
+        warmUp(filter);
+        long warmUpMillis = (System.nanoTime() - start) / 1_000_000;
+
+        present = new String[PROBES];
+        absent = new String[PROBES];
+        for (int i = 0; i < PROBES; i++) {
+            present[i] = email("user", (int) ((long) i * emails / PROBES));
+            absent[i] = email("new", i);
+        }
+
+        // 另外用一百萬個新的 email 量測實際誤判率
+        int falsePositives = 0;
+        for (int i = 0; i < 1_000_000; i++) {
+            if (filter.mightContain(email("other", i))) {
+                falsePositives++;
+            }
+        }
+        System.out.printf("%n%,d emails at fpp %s: %,d KB, %d hash functions, warm-up %,d ms, measured fpp %.4f%n",
+                emails, falsePositiveRate, filter.sizeInBytes() / 1024, filter.getHashCount(), warmUpMillis,
+                falsePositives / 1_000_000.0);
+    }
+
+    // 大部分 POST /users 是新的 email，預先過濾要能直接回答「不存在」
+    @Benchmark
+    public boolean mightContainAbsent() {
+        return filter.mightContain(absent[next++ & (PROBES - 1)]);
+    }
+
+    @Benchmark
+    public boolean mightContainPresent() {
+        return filter.mightContain(present[next++ & (PROBES - 1)]);
+    }
+
+    // 單次量測從零開始放入全部 email 的時間，不含資料庫讀取
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public BloomEmailFilter warmUp() {
+        BloomEmailFilter empty = newFilter();
+        warmUp(empty);
+        return empty;
+    }
+
+    private BloomEmailFilter newFilter() {
+        return new BloomEmailFilter(emails, falsePositiveRate, Long.MAX_VALUE, new SimpleMeterRegistry());
+    }
+
+    private void warmUp(BloomEmailFilter target) {
+        target.warmUp(put -> {
+            for (int i = 0; i < emails; i++) {
+                put.accept(email("user", i));
+            }
+        });
+    }
+
+    private static String email(String prefix, int i) {
+        return prefix + i + "@example.com";
+    }
+}
@@ -0,0 +1,74 @@
+package com.kai.test_practice.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kai.test_practice.config.GlobalExceptionHandler;
+import com.kai.test_practice.exceptions.UserNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// 比較 4xx 錯誤路徑的成本：建立例外、組錯誤回應並序列化
+// baseline 重現改版前的做法：有堆疊追蹤的例外、每次格式化時間戳、以一般 bean 序列化
+// depth 模擬例外拋出時的呼叫深度，實際經過 Spring MVC 與 Tomcat 時堆疊通常超過 100 層
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ErrorPathBenchmark {
+
+    @Param({"10", "150"})
+    private int depth;
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final GlobalExceptionHandler handler = new GlobalExceptionHandler(new SimpleMeterRegistry());
+
+    @Benchmark
+    public byte[] baselineNotFound() throws JsonProcessingException {
+        try {
+            throwAt(depth, () -> new RuntimeException("User with ID 1 not found."));
+            throw new AssertionError();
+        } catch (RuntimeException e) {
+            Map<String, String> body = new LinkedHashMap<>();
+            body.put("error", "User not found");
+            body.put("httpStatus", HttpStatus.NOT_FOUND.toString());
+            body.put("message", e.getMessage());
+            body.put("timestamp", LocalDateTime.now().toString());
+            return objectMapper.writeValueAsBytes(body);
+        }
+    }
+
+    @Benchmark
+    public byte[] fastNotFound() throws JsonProcessingException {
+        try {
+            throwAt(depth, () -> new UserNotFoundException("User with ID 1 not found."));
+            throw new AssertionError();
+        } catch (UserNotFoundException e) {
+            return objectMapper.writeValueAsBytes(handler.handleUserNotFoundException(e));
+        }
+    }
+
+    private static void throwAt(int depth, java.util.function.Supplier<RuntimeException> exception) {
+        if (depth <= 0) {
+            throw exception.get();
+        }
+        throwAt(depth - 1, exception);
+    }
+}
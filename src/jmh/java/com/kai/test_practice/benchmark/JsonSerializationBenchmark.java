@@ -0,0 +1,50 @@
+package com.kai.test_practice.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kai.test_practice.config.GlobalExceptionHandler;
+import com.kai.test_practice.entities.User;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+// 量測回應主體的 JSON 序列化成本，使用與 Spring MVC 相同方式建立的 ObjectMapper
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonSerializationBenchmark {
+
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private final User user = User.builder()
+            .id(1L)
+            .name("John Doe")
+            .email("john.doe@example.com")
+            .code("USER-1700000000000")
+            .build();
+
+    @Benchmark
+    public byte[] serializeUser() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public byte[] serializeErrorResponse() throws JsonProcessingException {
+        // 每次都建立新的 ErrorResponse，包含時間戳格式化的成本，與實際錯誤處理路徑一致
+        return objectMapper.writeValueAsBytes(new GlobalExceptionHandler.ErrorResponse(
+                "User not found", HttpStatus.NOT_FOUND.toString(), "User with ID 1 not found."));
+    }
+}
@@ -0,0 +1,86 @@
+package com.kai.test_practice.benchmark;
+
+import com.kai.test_practice.entities.CreateUserRequest;
+import com.kai.test_practice.services.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+// 量測完整的 MVC 流程：路由、參數驗證、service、例外處理與 JSON 序列化
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MockMvcRoundTripBenchmark {
+
+    private final AtomicLong emailSequence = new AtomicLong();
+
+    private ConfigurableApplicationContext context;
+    private MockMvc mockMvc;
+    private long existingId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(WebApplicationType.SERVLET);
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+        existingId = context.getBean(UserService.class)
+                .createUser(new CreateUserRequest("John Doe", "john.doe@example.com"))
+                .getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public MvcResult getUserById() throws Exception {
+        return mockMvc.perform(get("/users/{id}", existingId)).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult getMissingUser() throws Exception {
+        return mockMvc.perform(get("/users/{id}", -1L)).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult createUser() throws Exception {
+        String body = "{\"name\": \"Bench User\", \"email\": \"mvc-" + emailSequence.incrementAndGet() + "@example.com\"}";
+        return mockMvc.perform(post("/users").contentType(MediaType.APPLICATION_JSON).content(body)).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult createUserValidationError() throws Exception {
+        return mockMvc.perform(post("/users").contentType(MediaType.APPLICATION_JSON).content("{\"name\": \"A\"}")).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult createUserDuplicateEmail() throws Exception {
+        return mockMvc.perform(post("/users").contentType(MediaType.APPLICATION_JSON)
+                .content("{\"name\": \"John Doe\", \"email\": \"john.doe@example.com\"}")).andReturn();
+    }
+}
@@ -0,0 +1,47 @@
+package com.kai.test_practice.benchmark;
+
+import com.kai.test_practice.entities.CreateUserRequest;
+import com.kai.test_practice.entities.User;
+import com.kai.test_practice.generators.SnowflakeUserCodeGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+// 量測由 CreateUserRequest 建立 User 實體以及產生使用者代碼的成本
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserBenchmark {
+
+    private final CreateUserRequest request = new CreateUserRequest("John Doe", "john.doe@example.com");
+    private final SnowflakeUserCodeGenerator codeGenerator = new SnowflakeUserCodeGenerator(1);
+
+    @Benchmark
+    public User createUser() {
+        return User.createUser(request, codeGenerator);
+    }
+
+    @Benchmark
+    public String nextCode() {
+        return codeGenerator.nextCode();
+    }
+
+    // 多執行緒同時產生代碼，量測 CAS 競爭下的吞吐量
+    @Benchmark
+    @Threads(4)
+    public String nextCodeContended() {
+        return codeGenerator.nextCode();
+    }
+}
@@ -0,0 +1,77 @@
+package com.kai.test_practice.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kai.test_practice.entities.User;
+import com.kai.test_practice.repositories.UserRepository;
+import com.kai.test_practice.services.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// 比較列表查詢使用實體與使用 UserSummary 投影的延遲；加上 -prof gc 可同時比較每次操作的配置量：
+// mvn -Pbenchmark -DskipTests verify -Djmh.args="UserProjectionBenchmark -prof gc"
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserProjectionBenchmark {
+
+    @Param({"100", "1000"})
+    private int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private UserRepository userRepository;
+    private UserService userService;
+    private ObjectMapper objectMapper;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(WebApplicationType.NONE);
+        userRepository = context.getBean(UserRepository.class);
+        userService = context.getBean(UserService.class);
+        objectMapper = context.getBean(ObjectMapper.class);
+
+        context.getBean(JdbcTemplate.class).update("INSERT INTO users (id, name, email, normalized_email, code, version) "
+                + "SELECT NEXT VALUE FOR users_seq, 'Name ' || X, 'user' || X || '@example.com', 'user' || X || '@example.com', 'CODE-' || X, 0 "
+                + "FROM SYSTEM_RANGE(1, 10000)");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    // 舊的做法：載入完整的實體（含 dirty checking 快照）再序列化
+    @Benchmark
+    public byte[] entityPage() throws Exception {
+        Specification<User> all = (root, query, cb) -> cb.greaterThan(root.get("id"), 0L);
+        List<User> users = userRepository.findBy(all, query -> query.sortBy(Sort.by("id")).limit(pageSize).all());
+        return objectMapper.writeValueAsBytes(users);
+    }
+
+    // 新的做法：只查詢需要的欄位並直接建立 UserSummary
+    @Benchmark
+    public byte[] projectionPage() throws Exception {
+        return objectMapper.writeValueAsBytes(userService.getUsers(0L, pageSize));
+    }
+}
@@ -0,0 +1,113 @@
+package com.kai.test_practice.benchmark;
+
+import com.kai.test_practice.entities.UserSummary;
+import com.kai.test_practice.entities.UserSearchRequest;
+import com.kai.test_practice.jdbc.QueryPlans;
+import com.kai.test_practice.services.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+// 在 1M 筆資料上量測 GET /users/search 的各種查詢，並在開始前確認執行計畫都有使用索引
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserSearchBenchmark {
+
+    private static final int ROWS = 1_000_000;
+
+    // 每種搜尋條件與預期使用的索引，EXPLAIN 的是 UserSpecifications 實際產生的 SQL
+    private static final Map<Consumer<UserSearchRequest>, String> PLANNED_QUERIES = Map.of(
+            request -> request.setEmail("USER500000@EXAMPLE.COM"), "IDX_USERS_NORMALIZED_EMAIL",
+            request -> request.setEmailPrefix("user50000"), "IDX_USERS_NORMALIZED_EMAIL",
+            request -> request.setName("Name 500000"), "IDX_USERS_NAME",
+            request -> request.setNamePrefix("Name 50000"), "IDX_USERS_NAME");
+
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(WebApplicationType.NONE);
+        userService = context.getBean(UserService.class);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+        // 直接在資料庫內產生資料，避免準備資料的時間比量測還久
+        jdbcTemplate.update("INSERT INTO users (id, name, email, normalized_email, code, version) "
+                + "SELECT NEXT VALUE FOR users_seq, 'Name ' || X, 'User' || X || '@Example.com', 'user' || X || '@example.com', 'CODE-' || X, 0 "
+                + "FROM SYSTEM_RANGE(1, " + ROWS + ")");
+        jdbcTemplate.execute("ANALYZE");
+
+        DataSource dataSource = context.getBean(DataSource.class);
+        PLANNED_QUERIES.forEach((criterion, index) -> {
+            UserSearchRequest request = new UserSearchRequest();
+            criterion.accept(request);
+            String plan = QueryPlans.explain(dataSource, () -> userService.searchUsers(request));
+            System.out.println(plan);
+            boolean prefixQuery = request.getEmailPrefix() != null || request.getNamePrefix() != null;
+            if (!plan.contains(index) || (prefixQuery && !plan.contains("index sorted"))) {
+                throw new IllegalStateException("Search query does not use " + index + ": " + plan);
+            }
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    private int randomRow() {
+        return ThreadLocalRandom.current().nextInt(1, ROWS + 1);
+    }
+
+    @Benchmark
+    public List<UserSummary> emailIgnoreCase() {
+        UserSearchRequest request = new UserSearchRequest();
+        request.setEmail("USER" + randomRow() + "@EXAMPLE.COM");
+        return userService.searchUsers(request);
+    }
+
+    @Benchmark
+    public List<UserSummary> emailPrefix() {
+        UserSearchRequest request = new UserSearchRequest();
+        request.setEmailPrefix("user" + randomRow() / 10);
+        return userService.searchUsers(request);
+    }
+
+    @Benchmark
+    public List<UserSummary> nameExact() {
+        UserSearchRequest request = new UserSearchRequest();
+        request.setName("Name " + randomRow());
+        return userService.searchUsers(request);
+    }
+
+    @Benchmark
+    public List<UserSummary> namePrefix() {
+        UserSearchRequest request = new UserSearchRequest();
+        request.setNamePrefix("Name " + randomRow() / 10);
+        return userService.searchUsers(request);
+    }
+}
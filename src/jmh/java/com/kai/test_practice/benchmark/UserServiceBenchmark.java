@@ -0,0 +1,77 @@
+package com.kai.test_practice.benchmark;
+
+import com.kai.test_practice.entities.CreateUserRequest;
+import com.kai.test_practice.entities.User;
+import com.kai.test_practice.entities.UserSummary;
+import com.kai.test_practice.services.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// 透過真實的 UserService 與 H2 量測建立與查詢使用者的成本
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserServiceBenchmark {
+
+    private static final int SEED_USERS = 1000;
+
+    @Param({"true", "false"})
+    private boolean cacheEnabled;
+
+    // createUser 的新 email 是否先經過 Bloom filter，而不是每次都呼叫 existsByEmail
+    @Param({"true", "false"})
+    private boolean emailFilterEnabled;
+
+    private final AtomicLong emailSequence = new AtomicLong();
+
+    private ConfigurableApplicationContext context;
+    private UserService userService;
+    private long[] ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkApplication.start(WebApplicationType.NONE, "app.users.cache.enabled=" + cacheEnabled,
+                "app.users.email-filter.enabled=" + emailFilterEnabled, "app.users.email-filter.warm-up-in-background=false");
+        userService = context.getBean(UserService.class);
+
+        ids = new long[SEED_USERS];
+        for (int i = 0; i < SEED_USERS; i++) {
+            ids[i] = userService.createUser(new CreateUserRequest("Seed User", "seed-" + i + "@example.com")).getId();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public User createUser() {
+        return userService.createUser(new CreateUserRequest("Bench User", "bench-" + emailSequence.incrementAndGet() + "@example.com"));
+    }
+
+    @Benchmark
+    public UserSummary getUserById() {
+        long id = ids[(int) (emailSequence.incrementAndGet() % SEED_USERS)];
+        return userService.getUserById(id);
+    }
+}
@@ -0,0 +1,98 @@
+package com.kai.test_practice.benchmark;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.github.luben.zstd.Zstd;
+import com.kai.test_practice.entities.UserSummary;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+// 比較 JSON、CBOR 與 Smile 序列化單一使用者與 10k 使用者一頁的 CPU 成本，以及加上 gzip / zstd 後的總成本；
+// 每種組合送出的位元組數在開始時印出：
+// mvn -Pbenchmark -DskipTests verify -Djmh.args="WireFormatBenchmark"
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WireFormatBenchmark {
+
+    @Param({"json", "cbor", "smile"})
+    private String format;
+
+    @Param({"1", "10000"})
+    private int users;
+
+    private ObjectMapper objectMapper;
+    private Object body;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        JsonFactory factory = switch (format) {
+            case "cbor" -> new CBORFactory();
+            case "smile" -> new SmileFactory();
+            default -> new JsonFactory();
+        };
+        // 與 WireFormatConfig 相同，套用 fields= 使用的 filter 設定
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .factory(factory)
+                .filters(new SimpleFilterProvider().setFailOnUnknownId(false))
+                .build();
+
+        List<UserSummary> page = new ArrayList<>(users);
+        for (long id = 1; id <= users; id++) {
+            page.add(new UserSummary(id, "Name " + id, "user" + id + "@example.com", "USER-01HZX3K5Q8N2P" + id, 0L));
+        }
+        // 單一使用者對應 GET /users/{id}，其餘對應 GET /users 的一頁
+        body = users == 1 ? page.get(0) : page;
+
+        byte[] plain = serialize();
+        System.out.printf("%n%s, %d user(s): %d bytes, gzip %d bytes, zstd %d bytes%n",
+                format, users, plain.length, gzip(plain).length, Zstd.compress(plain, 3).length);
+    }
+
+    @Benchmark
+    public byte[] serialize() throws IOException {
+        return objectMapper.writeValueAsBytes(body);
+    }
+
+    @Benchmark
+    public byte[] serializeGzip() throws IOException {
+        return gzip(serialize());
+    }
+
+    @Benchmark
+    public byte[] serializeZstd() throws IOException {
+        return Zstd.compress(serialize(), 3);
+    }
+
+    private static byte[] gzip(byte[] bytes) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(output)) {
+            gzip.write(bytes);
+        }
+        return output.toByteArray();
+    }
+}
@@ -0,0 +1,109 @@
+package com.kai.test_practice.admission;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+// 全域同時處理數的上限，依觀察到的延遲自動調整（類似 Netflix concurrency-limits 的 Gradient2）：
+// 每個 window 比較這段時間的平均延遲與長期平均，延遲變長代表開始排隊，就降低上限；延遲穩定時慢慢提高
+public class AdaptiveConcurrencyLimiter {
+
+    // 每個 window 新上限只佔一部分，避免上限劇烈跳動
+    private static final double SMOOTHING = 0.2;
+    // 長期平均延遲的指數移動平均權重
+    private static final double LONG_TERM_WEIGHT = 0.05;
+    private static final int MIN_WINDOW_SAMPLES = 10;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final long windowNanos;
+    private final LongSupplier ticker;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final LongAdder windowLatency = new LongAdder();
+    private final LongAdder windowSamples = new LongAdder();
+    private final AtomicLong windowEnd;
+    // 只有搶到 windowEnd 的執行緒會更新下面兩個欄位
+    private volatile int limit;
+    private volatile double longTermLatency;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance, Duration window) {
+        this(initialLimit, minLimit, maxLimit, tolerance, window, System::nanoTime);
+    }
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, double tolerance, Duration window,
+                                      LongSupplier ticker) {
+        if (minLimit < 1 || initialLimit < minLimit || maxLimit < initialLimit || tolerance < 1) {
+            throw new IllegalArgumentException("Concurrency limits should satisfy 1 <= min <= initial <= max and tolerance >= 1");
+        }
+        this.limit = initialLimit;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.tolerance = tolerance;
+        this.windowNanos = window.toNanos();
+        this.ticker = ticker;
+        this.windowEnd = new AtomicLong(ticker.getAsLong() + windowNanos);
+    }
+
+    // 未達上限時佔用一個名額並回傳 true，之後必須呼叫 release
+    public boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                peakInFlight.accumulateAndGet(current + 1, Math::max);
+                return true;
+            }
+        }
+    }
+
+    // 請求完成後歸還名額並記錄延遲
+    public void release(long latencyNanos) {
+        inFlight.decrementAndGet();
+        windowLatency.add(latencyNanos);
+        windowSamples.increment();
+
+        long now = ticker.getAsLong();
+        long end = windowEnd.get();
+        if (now - end >= 0 && windowEnd.compareAndSet(end, now + windowNanos)) {
+            updateLimit();
+        }
+    }
+
+    private void updateLimit() {
+        long samples = windowSamples.sumThenReset();
+        long latency = windowLatency.sumThenReset();
+        int peak = peakInFlight.getAndSet(inFlight.get());
+        if (samples < MIN_WINDOW_SAMPLES) {
+            return;
+        }
+        double shortTerm = (double) latency / samples;
+        double longTerm = longTermLatency == 0 ? shortTerm : longTermLatency * (1 - LONG_TERM_WEIGHT) + shortTerm * LONG_TERM_WEIGHT;
+        longTermLatency = longTerm;
+
+        // 延遲在容忍範圍內時 gradient 為 1，上限加上 sqrt(limit) 的排隊空間；延遲越長上限降得越多，最多一次減半
+        int current = limit;
+        double gradient = Math.max(0.5, Math.min(1.0, tolerance * longTerm / shortTerm));
+        double target = current * gradient + Math.sqrt(current);
+        if (peak < current / 2) {
+            // 請求量遠低於上限時延遲無法反映容量，不繼續提高
+            target = Math.min(target, current);
+        }
+        int next = (int) Math.round(current * (1 - SMOOTHING) + target * SMOOTHING);
+        limit = Math.max(minLimit, Math.min(maxLimit, next));
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+}
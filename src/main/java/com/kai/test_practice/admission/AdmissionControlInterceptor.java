@@ -0,0 +1,93 @@
+package com.kai.test_practice.admission;
+
+import com.kai.test_practice.controllers.UserController;
+import com.kai.test_practice.exceptions.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.util.concurrent.TimeUnit;
+
+// 在 UserController 前面做准入控制：先依客戶端限流，再檢查全域同時處理數；
+// 拒絕時拋出 TooManyRequestsException，由 GlobalExceptionHandler 回傳 429
+public class AdmissionControlInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String START_ATTRIBUTE = AdmissionControlInterceptor.class.getName() + ".start";
+
+    private final ClientRateLimiter rateLimiter;
+    private final AdaptiveConcurrencyLimiter concurrencyLimiter;
+    private final String clientHeader;
+    private final Counter rateLimited;
+    private final Counter overloaded;
+
+    // clientHeader 為空時以連線的遠端位址區分客戶端；經過 gateway 時可改用 gateway 設定的 header
+    public AdmissionControlInterceptor(ClientRateLimiter rateLimiter, AdaptiveConcurrencyLimiter concurrencyLimiter,
+                                       String clientHeader, MeterRegistry meterRegistry) {
+        this.rateLimiter = rateLimiter;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.clientHeader = clientHeader;
+
+        // 可在 /actuator/prometheus 看到 admission_rejections_total 與目前的上限
+        this.rateLimited = meterRegistry.counter("admission.rejections", "reason", "rate-limit");
+        this.overloaded = meterRegistry.counter("admission.rejections", "reason", "concurrency");
+        Gauge.builder("admission.concurrency.limit", concurrencyLimiter, AdaptiveConcurrencyLimiter::getLimit).register(meterRegistry);
+        Gauge.builder("admission.concurrency.in.flight", concurrencyLimiter, AdaptiveConcurrencyLimiter::getInFlight).register(meterRegistry);
+        Gauge.builder("admission.clients", rateLimiter, ClientRateLimiter::trackedClients).register(meterRegistry);
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // async dispatch 會再次呼叫 preHandle，只在原始請求時檢查
+        if (request.getDispatcherType() != DispatcherType.REQUEST || !isUserController(handler)) {
+            return true;
+        }
+        long wait = rateLimiter.tryAcquire(clientOf(request));
+        if (wait > 0) {
+            rateLimited.increment();
+            throw new TooManyRequestsException("Rate limit exceeded, retry later", Math.max(1, TimeUnit.NANOSECONDS.toSeconds(wait + 999_999_999)));
+        }
+        if (!concurrencyLimiter.tryAcquire()) {
+            overloaded.increment();
+            throw new TooManyRequestsException("Server is busy, retry later", 1);
+        }
+        request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        return true;
+    }
+
+    // 串流回應改由其他執行緒寫出，不再佔用名額
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        release(request);
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        release(request);
+    }
+
+    private void release(HttpServletRequest request) {
+        if (request.getAttribute(START_ATTRIBUTE) instanceof Long start) {
+            request.removeAttribute(START_ATTRIBUTE);
+            concurrencyLimiter.release(System.nanoTime() - start);
+        }
+    }
+
+    private boolean isUserController(Object handler) {
+        return handler instanceof HandlerMethod method && method.getBeanType() == UserController.class;
+    }
+
+    private String clientOf(HttpServletRequest request) {
+        if (!clientHeader.isEmpty()) {
+            String client = request.getHeader(clientHeader);
+            if (client != null && !client.isEmpty()) {
+                return client;
+            }
+        }
+        return request.getRemoteAddr();
+    }
+}
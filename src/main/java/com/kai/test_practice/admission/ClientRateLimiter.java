@@ -0,0 +1,50 @@
+package com.kai.test_practice.admission;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.function.LongSupplier;
+
+// 每個客戶端各自一個 token bucket；bucket 存在 Caffeine 中，分段的雜湊表不會互相鎖住，
+// 數量有上限，閒置超過 idleTimeout 的客戶端會被移除（此時 bucket 早已補滿，移除不影響限流結果）
+public class ClientRateLimiter {
+
+    private final Cache<String, TokenBucket> buckets;
+    private final LongSupplier ticker;
+    private final long intervalNanos;
+    private final long capacityNanos;
+
+    public ClientRateLimiter(double requestsPerSecond, int burst, long maxClients, Duration idleTimeout) {
+        this(requestsPerSecond, burst, maxClients, idleTimeout, System::nanoTime);
+    }
+
+    public ClientRateLimiter(double requestsPerSecond, int burst, long maxClients, Duration idleTimeout, LongSupplier ticker) {
+        if (requestsPerSecond <= 0 || burst < 1 || maxClients < 1) {
+            throw new IllegalArgumentException("Rate limit, burst and max clients should be positive");
+        }
+        this.intervalNanos = (long) (1_000_000_000 / requestsPerSecond);
+        this.capacityNanos = intervalNanos * burst;
+        if (idleTimeout.toNanos() < capacityNanos) {
+            throw new IllegalArgumentException("Idle timeout should be at least the time to refill a full bucket");
+        }
+        this.ticker = ticker;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(maxClients)
+                .expireAfterAccess(idleTimeout)
+                .ticker(ticker::getAsLong)
+                .build();
+    }
+
+    // 取得 token 回傳 0，否則回傳還需要等待的奈秒數
+    public long tryAcquire(String client) {
+        long now = ticker.getAsLong();
+        return buckets.get(client, key -> new TokenBucket(now)).tryAcquire(now, intervalNanos, capacityNanos);
+    }
+
+    // 先清除已過期的客戶端再計算數量
+    public long trackedClients() {
+        buckets.cleanUp();
+        return buckets.estimatedSize();
+    }
+}
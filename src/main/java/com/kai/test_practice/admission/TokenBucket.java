@@ -0,0 +1,28 @@
+package com.kai.test_practice.admission;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+// 以 GCRA 實作的 token bucket：整個狀態只有一個「理論上下一個請求到達的時間」，一次 CAS 就能取得 token，不需要加鎖
+final class TokenBucket {
+
+    private final AtomicLong theoreticalArrival;
+
+    TokenBucket(long now) {
+        this.theoreticalArrival = new AtomicLong(now);
+    }
+
+    // 取得一個 token 回傳 0，否則回傳還需要等待的奈秒數
+    long tryAcquire(long now, long intervalNanos, long capacityNanos) {
+        while (true) {
+            long current = theoreticalArrival.get();
+            long next = Math.max(current, now) + intervalNanos;
+            long wait = next - now - capacityNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (theoreticalArrival.compareAndSet(current, next)) {
+                return 0;
+            }
+        }
+    }
+}
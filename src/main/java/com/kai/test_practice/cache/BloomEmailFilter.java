@@ -0,0 +1,119 @@
+package com.kai.test_practice.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+// 以 Bloom filter 記錄已存在的 email，每個 email 只佔約 10 bits（誤判率 1% 時），一千萬筆約 12 MB
+// 只會新增不會刪除；預熱完成前一律回傳可能存在，不影響正確性
+public class BloomEmailFilter implements EmailFilter {
+
+    private static final double LN2 = Math.log(2);
+
+    private final AtomicLongArray bits;
+    private final long bitSize;
+    private final int hashCount;
+    private final LongAdder insertions = new LongAdder();
+    private final Counter absent;
+    private final Counter maybe;
+    private volatile boolean warmedUp;
+
+    // 依預期筆數與誤判率計算大小，超過 maxBytes 時以 maxBytes 為上限，實際誤判率會高於設定值
+    public BloomEmailFilter(long expectedInsertions, double falsePositiveRate, long maxBytes, MeterRegistry meterRegistry) {
+        if (expectedInsertions < 1 || falsePositiveRate <= 0 || falsePositiveRate >= 1 || maxBytes < Long.BYTES) {
+            throw new IllegalArgumentException("Email filter needs positive expected insertions, a false-positive rate between 0 and 1 and a memory limit");
+        }
+        long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (LN2 * LN2));
+        long words = Math.min((optimalBits + 63) / 64, Math.min(maxBytes / Long.BYTES, Integer.MAX_VALUE));
+        this.bits = new AtomicLongArray((int) words);
+        this.bitSize = words * 64;
+        this.hashCount = (int) Math.max(1, Math.round((double) bitSize / expectedInsertions * LN2));
+
+        // 可在 /actuator/prometheus 看到省下的資料庫查詢次數與目前估計的誤判率
+        this.absent = meterRegistry.counter("users.email.filter.checks", "result", "absent");
+        this.maybe = meterRegistry.counter("users.email.filter.checks", "result", "maybe");
+        Gauge.builder("users.email.filter.size", this, BloomEmailFilter::sizeInBytes).baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("users.email.filter.false.positive.rate", this, BloomEmailFilter::expectedFalsePositiveRate).register(meterRegistry);
+    }
+
+    @Override
+    public boolean mightContain(String email) {
+        if (!warmedUp || containsAll(email)) {
+            maybe.increment();
+            return true;
+        }
+        absent.increment();
+        return false;
+    }
+
+    @Override
+    public void put(String email) {
+        long h1 = hash(email);
+        long h2 = mix(h1 + 0x9E3779B97F4A7C15L);
+        for (int i = 0; i < hashCount; i++) {
+            long index = Math.floorMod(h1 + i * h2, bitSize);
+            int word = (int) (index >>> 6);
+            long mask = 1L << index;
+            long current = bits.get(word);
+            while ((current & mask) == 0 && !bits.compareAndSet(word, current, current | mask)) {
+                current = bits.get(word);
+            }
+        }
+        insertions.increment();
+    }
+
+    // source 逐筆提供資料庫中已存在的 email；預熱期間寫入的 email 也會透過 put 加入，所以完成後不會漏掉
+    public void warmUp(Consumer<Consumer<String>> source) {
+        source.accept(this::put);
+        warmedUp = true;
+    }
+
+    public boolean isWarmedUp() {
+        return warmedUp;
+    }
+
+    public long sizeInBytes() {
+        return bitSize / 8;
+    }
+
+    public int getHashCount() {
+        return hashCount;
+    }
+
+    // 以目前寫入的筆數估計誤判率：(1 - e^(-kn/m))^k
+    public double expectedFalsePositiveRate() {
+        return Math.pow(1 - Math.exp(-(double) hashCount * insertions.sum() / bitSize), hashCount);
+    }
+
+    private boolean containsAll(String email) {
+        long h1 = hash(email);
+        long h2 = mix(h1 + 0x9E3779B97F4A7C15L);
+        for (int i = 0; i < hashCount; i++) {
+            long index = Math.floorMod(h1 + i * h2, bitSize);
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // FNV-1a 再經過 murmur3 的 fmix64 打散，String.hashCode 只有 32 bits，一千萬筆時碰撞太多
+    private static long hash(String value) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        return mix(hash);
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xff51afd7ed558ccdL;
+        z = (z ^ (z >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        return z ^ (z >>> 33);
+    }
+}
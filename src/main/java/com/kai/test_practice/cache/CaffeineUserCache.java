@@ -0,0 +1,78 @@
+package com.kai.test_practice.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kai.test_practice.entities.UserSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+// 以 Caffeine 實作的有界快取，依大小與存活時間淘汰資料，並額外快取不存在的 id
+public class CaffeineUserCache implements UserCache {
+
+    private final Cache<Long, UserSummary> users;
+    private final Cache<Long, Boolean> missingIds;
+
+    public CaffeineUserCache(long maximumSize, Duration ttl, long negativeMaximumSize, Duration negativeTtl,
+                             MeterRegistry meterRegistry) {
+        this.users = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.missingIds = Caffeine.newBuilder()
+                .maximumSize(negativeMaximumSize)
+                .expireAfterWrite(negativeTtl)
+                .recordStats()
+                .build();
+
+        // 命中、未命中與淘汰次數會以 cache.gets / cache.evictions 等指標公開
+        CaffeineCacheMetrics.monitor(meterRegistry, users, "users");
+        CaffeineCacheMetrics.monitor(meterRegistry, missingIds, "users.missing");
+    }
+
+    // 在 missingIds 對這個 id 的鎖內載入：put() 與 evict() 清除同一個 id 時會等載入結束，
+    // 載入中讀到的「不存在」或舊資料不會蓋過之後寫入的使用者；同一個 id 同時未命中時也只查詢一次
+    @Override
+    public Optional<UserSummary> get(Long id, Function<Long, Optional<UserSummary>> loader) {
+        UserSummary cached = users.getIfPresent(id);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
+
+        AtomicReference<UserSummary> found = new AtomicReference<>();
+        Boolean missing = missingIds.get(id, key -> {
+            UserSummary current = users.asMap().get(key);
+            if (current == null) {
+                current = loader.apply(key).orElse(null);
+                if (current == null) {
+                    return Boolean.TRUE;
+                }
+                // 載入期間 put() 寫入的較新資料優先
+                UserSummary previous = users.asMap().putIfAbsent(key, current);
+                current = previous != null ? previous : current;
+            }
+            found.set(current);
+            return null; // 使用者存在，不記錄到 missingIds
+        });
+        return missing != null ? Optional.empty() : Optional.of(found.get());
+    }
+
+    // 先寫入 users 再清除不存在的記錄：進行中的載入會先完成，之後的載入都看得到這筆資料
+    @Override
+    public void put(UserSummary user) {
+        users.put(user.id(), user);
+        missingIds.invalidate(user.id());
+    }
+
+    // 先清除 missingIds，等進行中的載入完成後再清除 users，載入中讀到的舊資料不會留在快取裡
+    @Override
+    public void evict(Long id) {
+        missingIds.invalidate(id);
+        users.invalidate(id);
+    }
+}
@@ -0,0 +1,11 @@
+package com.kai.test_practice.cache;
+
+// 放在 existsByEmail 前面的存在性預先過濾：回傳 false 代表 email 一定不存在，可以省略資料庫查詢；
+// 回傳 true 只代表可能存在，仍需查詢資料庫，最終由唯一索引保證 email 不重複
+public interface EmailFilter {
+
+    boolean mightContain(String email);
+
+    // 使用者寫入後呼叫
+    void put(String email);
+}
@@ -0,0 +1,14 @@
+package com.kai.test_practice.cache;
+
+// 關閉預先過濾時使用，每次都查詢資料庫
+public class NoOpEmailFilter implements EmailFilter {
+
+    @Override
+    public boolean mightContain(String email) {
+        return true;
+    }
+
+    @Override
+    public void put(String email) {
+    }
+}
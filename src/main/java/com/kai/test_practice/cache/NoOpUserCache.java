@@ -0,0 +1,23 @@
+package com.kai.test_practice.cache;
+
+import com.kai.test_practice.entities.UserSummary;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+// 關閉快取時使用，每次都直接查詢資料庫
+public class NoOpUserCache implements UserCache {
+
+    @Override
+    public Optional<UserSummary> get(Long id, Function<Long, Optional<UserSummary>> loader) {
+        return loader.apply(id);
+    }
+
+    @Override
+    public void put(UserSummary user) {
+    }
+
+    @Override
+    public void evict(Long id) {
+    }
+}
@@ -0,0 +1,19 @@
+package com.kai.test_practice.cache;
+
+import com.kai.test_practice.entities.UserSummary;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+// 放在 UserRepository 查詢單一使用者前面的快取層，可以替換成不同的實作；快取的 UserSummary 是不可變的，可安全地在請求間共用
+public interface UserCache {
+
+    // 先從快取取得使用者，沒有的話呼叫 loader 載入；不存在的 id 也會被記住一段時間
+    Optional<UserSummary> get(Long id, Function<Long, Optional<UserSummary>> loader);
+
+    // 使用者被建立或更新後呼叫，讓快取中的資料保持最新
+    void put(UserSummary user);
+
+    // 將指定 id 從快取中移除
+    void evict(Long id);
+}
@@ -0,0 +1,278 @@
+package com.kai.test_practice.compression;
+
+import com.github.luben.zstd.ZstdOutputStream;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.http.HttpHeaders;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+
+// 先把回應緩衝到門檻大小再決定：小於門檻的回應帶上 Content-Length 原樣送出；超過門檻時有指定 zstd level 就以 zstd 壓縮，
+// 否則原樣送出交給 Tomcat 以 gzip 壓縮。不可壓縮或非同步輸出的回應不緩衝。
+// 非同步請求（StreamingResponseBody、SSE）會在其他執行緒寫入，所有狀態都在 lock 內讀寫；
+// 使用 ReentrantLock 而不是 synchronized，virtual thread 在 lock 內寫 socket 時不會佔住載體執行緒
+class CompressingResponseWrapper extends HttpServletResponseWrapper {
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final HttpServletRequest request;
+    private final Predicate<String> compressible;
+    private final int minResponseSize;
+    private final Integer zstdLevel; // null 表示不以 zstd 壓縮
+    private ByteArrayOutputStream buffer; // 尚未決定是否壓縮時的內容，決定後為 null
+    private OutputStream target; // 決定後實際寫入的串流：原本的回應，或包在外面的 zstd 串流
+    private boolean finished;
+    private boolean nonBlocking;
+    private ServletOutputStream outputStream;
+    private PrintWriter writer;
+
+    CompressingResponseWrapper(HttpServletRequest request, HttpServletResponse response, Predicate<String> compressible,
+                               int minResponseSize, Integer zstdLevel) {
+        super(response);
+        this.request = request;
+        this.compressible = compressible;
+        this.minResponseSize = minResponseSize;
+        this.zstdLevel = zstdLevel;
+        this.buffer = new ByteArrayOutputStream(Math.min(minResponseSize, 8192));
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+        lock.lock();
+        try {
+            if (outputStream == null) {
+                outputStream = new CompressingServletOutputStream();
+            }
+            return outputStream;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public PrintWriter getWriter() {
+        lock.lock();
+        try {
+            if (writer == null) {
+                writer = new PrintWriter(new OutputStreamWriter(getOutputStream(), Charset.forName(getCharacterEncoding())));
+            }
+            return writer;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 長度在決定是否壓縮之後才知道，由這裡自行設定
+    @Override
+    public void setContentLength(int length) {
+    }
+
+    @Override
+    public void setContentLengthLong(long length) {
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            super.setHeader(name, value);
+        }
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            super.addHeader(name, value);
+        }
+    }
+
+    // Spring 回傳 ResponseEntity 後一律會呼叫 flushBuffer()：同步請求還在緩衝時交給緊接著的 finish() 一起送出；
+    // 非同步請求（例如 SSE 的每個事件）不再等待門檻，緩衝中的內容原樣送出
+    @Override
+    public void flushBuffer() throws IOException {
+        lock.lock();
+        try {
+            flushWriter();
+            if (buffer != null) {
+                if (!request.isAsyncStarted()) {
+                    return;
+                }
+                decide(false);
+            }
+            target.flush();
+            super.flushBuffer();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void resetBuffer() {
+        lock.lock();
+        try {
+            super.resetBuffer();
+            if (buffer != null) {
+                buffer.reset();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void reset() {
+        lock.lock();
+        try {
+            super.reset();
+            if (buffer != null) {
+                buffer.reset();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 請求執行緒處理完畢時呼叫：送出仍在緩衝中的內容並結束 zstd 串流；
+    // 非同步請求之後的內容由其他執行緒原樣寫出，長度未知
+    void finish() throws IOException {
+        lock.lock();
+        try {
+            if (finished) {
+                return;
+            }
+            finished = true;
+            flushWriter();
+            if (buffer != null) {
+                if (buffer.size() > 0 && !request.isAsyncStarted()) {
+                    getResponse().setContentLength(buffer.size());
+                }
+                decide(false);
+            }
+            if (target instanceof ZstdOutputStream) {
+                target.close();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void write(byte[] bytes, int offset, int length) throws IOException {
+        lock.lock();
+        try {
+            if (buffer != null) {
+                if (getResponse().isCommitted() || request.isAsyncStarted() || containsHeader(HttpHeaders.CONTENT_ENCODING)
+                        || hasStrongETag() || !compressible.test(getContentType())) {
+                    decide(false);
+                } else if (buffer.size() + length >= minResponseSize) {
+                    decide(zstdLevel != null);
+                } else {
+                    buffer.write(bytes, offset, length);
+                    return;
+                }
+            }
+            target.write(bytes, offset, length);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 非阻塞輸出不經過緩衝與壓縮，直接交給原本的串流
+    private void setWriteListener(WriteListener writeListener) {
+        lock.lock();
+        try {
+            if (buffer != null) {
+                decide(false);
+            }
+            nonBlocking = true;
+            getResponse().getOutputStream().setWriteListener(writeListener);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private boolean isReady() {
+        lock.lock();
+        try {
+            return !nonBlocking || getResponse().getOutputStream().isReady();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // 強 ETag 代表位元組完全相同，帶強 ETag 的回應不壓縮
+    private boolean hasStrongETag() {
+        String eTag = getHeader(HttpHeaders.ETAG);
+        return eTag != null && !eTag.trim().startsWith("W/");
+    }
+
+    private void decide(boolean compress) throws IOException {
+        OutputStream raw = getResponse().getOutputStream();
+        if (compress) {
+            ((HttpServletResponse) getResponse()).setHeader(HttpHeaders.CONTENT_ENCODING, "zstd");
+            target = new ZstdOutputStream(raw, zstdLevel);
+        } else {
+            target = raw;
+        }
+        buffer.writeTo(target);
+        buffer = null;
+    }
+
+    private void flushWriter() {
+        if (writer != null) {
+            writer.flush();
+        }
+    }
+
+    private class CompressingServletOutputStream extends ServletOutputStream {
+
+        @Override
+        public void write(int b) throws IOException {
+            write(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            CompressingResponseWrapper.this.write(bytes, offset, length);
+        }
+
+        // 訊息轉換器寫完都會呼叫 flush，還在緩衝時留到 finish() 一起決定；需要立即送出時使用 flushBuffer()
+        @Override
+        public void flush() throws IOException {
+            lock.lock();
+            try {
+                if (buffer == null) {
+                    target.flush();
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            finish();
+        }
+
+        @Override
+        public boolean isReady() {
+            return CompressingResponseWrapper.this.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            CompressingResponseWrapper.this.setWriteListener(writeListener);
+        }
+    }
+}
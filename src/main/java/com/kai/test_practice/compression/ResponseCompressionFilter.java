@@ -0,0 +1,76 @@
+package com.kai.test_practice.compression;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+// 可壓縮的回應先緩衝到門檻大小再決定編碼：客戶端接受 zstd 時由這裡以 zstd 壓縮；
+// 只接受 gzip 時超過門檻才原樣送出交給 Tomcat 的 server.compression，小於門檻的回應帶上 Content-Length，Tomcat 便不會壓縮。
+// 已經帶 Content-Encoding 的回應 Tomcat 不會再壓縮一次
+public class ResponseCompressionFilter extends OncePerRequestFilter {
+
+    private final List<MimeType> mimeTypes;
+    private final int minResponseSize;
+    private final boolean gzipEnabled;
+    private final boolean zstdEnabled;
+    private final int level;
+
+    public ResponseCompressionFilter(List<String> mimeTypes, int minResponseSize, boolean gzipEnabled, boolean zstdEnabled, int level) {
+        this.mimeTypes = mimeTypes.stream().map(MimeTypeUtils::parseMimeType).toList();
+        this.minResponseSize = minResponseSize;
+        this.gzipEnabled = gzipEnabled;
+        this.zstdEnabled = zstdEnabled;
+        this.level = level;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String acceptEncoding = request.getHeader(HttpHeaders.ACCEPT_ENCODING);
+        boolean zstd = zstdEnabled && accepts(acceptEncoding, "zstd");
+        if (!zstd && !(gzipEnabled && accepts(acceptEncoding, "gzip"))) {
+            chain.doFilter(request, response);
+            return;
+        }
+
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        CompressingResponseWrapper wrapper = new CompressingResponseWrapper(request, response, this::isCompressible,
+                minResponseSize, zstd ? level : null);
+        try {
+            chain.doFilter(request, wrapper);
+        } finally {
+            // 發生例外時也要結束壓縮串流，釋放 zstd 的原生記憶體
+            wrapper.finish();
+        }
+    }
+
+    // Accept-Encoding 中有指定的編碼且沒有以 q=0 排除
+    static boolean accepts(String acceptEncoding, String coding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String item : acceptEncoding.split(",")) {
+            String[] parts = item.split(";");
+            if (parts[0].trim().equalsIgnoreCase(coding)) {
+                return parts.length == 1 || !parts[1].replace(" ", "").matches("q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    private boolean isCompressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        MimeType type = MimeTypeUtils.parseMimeType(contentType);
+        return mimeTypes.stream().anyMatch(type::equalsTypeAndSubtype);
+    }
+}
@@ -0,0 +1,52 @@
+package com.kai.test_practice.config;
+
+import com.kai.test_practice.admission.AdaptiveConcurrencyLimiter;
+import com.kai.test_practice.admission.AdmissionControlInterceptor;
+import com.kai.test_practice.admission.ClientRateLimiter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.time.Duration;
+
+// 預設以遠端位址區分客戶端；經過負載平衡器或 gateway 時所有請求的遠端位址相同，會被當成同一個客戶端限流，
+// 因此 prod 要求以 client-header 指定 gateway 帶上的客戶端 header，未設定時啟動失敗
+@Configuration
+@Lazy(false) // prod 啟用延遲初始化，仍要在啟動時檢查 client-header
+@ConditionalOnProperty(name = "app.admission.enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionControlConfig implements WebMvcConfigurer {
+
+    private final AdmissionControlInterceptor admissionControlInterceptor;
+
+    public AdmissionControlConfig(@Value("${app.admission.rate-limit.requests-per-second:100}") double requestsPerSecond,
+                                  @Value("${app.admission.rate-limit.burst:200}") int burst,
+                                  @Value("${app.admission.rate-limit.max-clients:100000}") long maxClients,
+                                  @Value("${app.admission.rate-limit.idle-timeout:5m}") Duration idleTimeout,
+                                  @Value("${app.admission.rate-limit.client-header:}") String clientHeader,
+                                  @Value("${app.admission.rate-limit.require-client-header:false}") boolean requireClientHeader,
+                                  @Value("${app.admission.concurrency.initial-limit:100}") int initialLimit,
+                                  @Value("${app.admission.concurrency.min-limit:10}") int minLimit,
+                                  @Value("${app.admission.concurrency.max-limit:1000}") int maxLimit,
+                                  @Value("${app.admission.concurrency.tolerance:2.0}") double tolerance,
+                                  @Value("${app.admission.concurrency.window:1s}") Duration window,
+                                  MeterRegistry meterRegistry) {
+        if (requireClientHeader && clientHeader.isBlank()) {
+            throw new IllegalStateException("app.admission.rate-limit.client-header is required: set it to the header "
+                    + "that identifies the client behind the load balancer, or set app.admission.enabled=false");
+        }
+        this.admissionControlInterceptor = new AdmissionControlInterceptor(
+                new ClientRateLimiter(requestsPerSecond, burst, maxClients, idleTimeout),
+                new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, tolerance, window),
+                clientHeader, meterRegistry);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(admissionControlInterceptor).addPathPatterns("/users", "/users/**");
+    }
+}
@@ -0,0 +1,35 @@
+package com.kai.test_practice.config;
+
+import com.kai.test_practice.cache.EmailFilter;
+import com.kai.test_practice.repositories.UserRepository;
+import com.kai.test_practice.services.AsyncUserCreateService;
+import com.kai.test_practice.services.UserImportService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConditionalOnProperty(name = AsyncUserCreateConfig.ENABLED_PROPERTY, havingValue = "true", matchIfMissing = true)
+public class AsyncUserCreateConfig {
+
+    // 設定 app.users.async.enabled=false 可關閉 POST /users/async
+    public static final String ENABLED_PROPERTY = "app.users.async.enabled";
+
+    @Bean
+    public AsyncUserCreateService asyncUserCreateService(UserRepository userRepository,
+                                                         EmailFilter emailFilter,
+                                                         UserImportService userImportService,
+                                                         @Value("${app.users.async.queue-capacity:10000}") int queueCapacity,
+                                                         @Value("${app.users.async.batch-size:500}") int batchSize,
+                                                         @Value("${app.users.async.status-ttl:10m}") Duration statusTtl,
+                                                         @Value("${app.users.async.status-maximum-size:100000}") long statusMaximumSize,
+                                                         @Value("${app.users.async.shutdown-timeout:30s}") Duration shutdownTimeout,
+                                                         MeterRegistry meterRegistry) {
+        return new AsyncUserCreateService(userRepository, emailFilter, userImportService, queueCapacity, batchSize, statusTtl,
+                statusMaximumSize, shutdownTimeout, meterRegistry);
+    }
+}
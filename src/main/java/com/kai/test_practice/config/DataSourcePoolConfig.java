@@ -0,0 +1,23 @@
+package com.kai.test_practice.config;
+
+import com.kai.test_practice.datasource.ConnectionPoolSizer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.pool.auto-size", havingValue = "true")
+public class DataSourcePoolConfig {
+
+    // 會用到連線的執行緒：Tomcat 的請求執行緒，加上非同步寫入與 Bloom filter 預熱等背景執行緒；
+    // BeanPostProcessor 必須是 static，才不會讓這個設定類別提早初始化
+    @Bean
+    public static ConnectionPoolSizer connectionPoolSizer(@Value("${app.datasource.pool.connections-per-core:2}") int connectionsPerCore,
+                                                          @Value("${app.datasource.pool.effective-spindles:1}") int effectiveSpindles,
+                                                          @Value("${server.tomcat.threads.max:200}") int requestThreads,
+                                                          @Value("${app.datasource.pool.background-threads:2}") int backgroundThreads) {
+        return new ConnectionPoolSizer(connectionsPerCore, effectiveSpindles, requestThreads + backgroundThreads,
+                Runtime.getRuntime().availableProcessors());
+    }
+}
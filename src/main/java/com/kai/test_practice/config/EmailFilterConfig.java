@@ -0,0 +1,67 @@
+package com.kai.test_practice.config;
+
+import com.kai.test_practice.cache.BloomEmailFilter;
+import com.kai.test_practice.cache.EmailFilter;
+import com.kai.test_practice.cache.NoOpEmailFilter;
+import com.kai.test_practice.repositories.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+@Configuration
+@Slf4j
+public class EmailFilterConfig {
+
+    private static final String ENABLED_PROPERTY = "app.users.email-filter.enabled";
+
+    // 預設啟用，設定 app.users.email-filter.enabled=false 可關閉，每次建立使用者都查詢資料庫
+    @Bean
+    @ConditionalOnProperty(name = ENABLED_PROPERTY, havingValue = "true", matchIfMissing = true)
+    public BloomEmailFilter bloomEmailFilter(@Value("${app.users.email-filter.expected-insertions:10000000}") long expectedInsertions,
+                                             @Value("${app.users.email-filter.false-positive-rate:0.01}") double falsePositiveRate,
+                                             @Value("${app.users.email-filter.max-memory:32MB}") DataSize maxMemory,
+                                             MeterRegistry meterRegistry) {
+        return new BloomEmailFilter(expectedInsertions, falsePositiveRate, maxMemory.toBytes(), meterRegistry);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = ENABLED_PROPERTY, havingValue = "false")
+    public EmailFilter noOpEmailFilter() {
+        return new NoOpEmailFilter();
+    }
+
+    // 啟動後從資料表讀出所有 email；預設在背景執行，不延後啟動，預熱完成前的請求照常查詢資料庫
+    @Bean
+    @ConditionalOnProperty(name = ENABLED_PROPERTY, havingValue = "true", matchIfMissing = true)
+    public ApplicationRunner warmUpEmailFilter(BloomEmailFilter emailFilter,
+                                               UserRepository userRepository,
+                                               @Value("${app.users.email-filter.warm-up-fetch-size:10000}") int fetchSize,
+                                               @Value("${app.users.email-filter.warm-up-in-background:true}") boolean inBackground) {
+        return args -> {
+            Runnable warmUp = () -> {
+                long start = System.nanoTime();
+                try {
+                    emailFilter.warmUp(put -> userRepository.forEachEmail(fetchSize, put));
+                    log.info("Email filter warmed up in {} ms: {} KB, {} hash functions, expected false-positive rate {}",
+                            (System.nanoTime() - start) / 1_000_000, emailFilter.sizeInBytes() / 1024,
+                            emailFilter.getHashCount(), emailFilter.expectedFalsePositiveRate());
+                } catch (RuntimeException e) {
+                    // 預熱失敗時維持「可能存在」，每次都查詢資料庫
+                    log.warn("Email filter warm-up failed, duplicate checks fall back to the database", e);
+                }
+            };
+            if (!inBackground) {
+                warmUp.run();
+                return;
+            }
+            Thread thread = new Thread(warmUp, "email-filter-warm-up");
+            thread.setDaemon(true);
+            thread.start();
+        };
+    }
+}
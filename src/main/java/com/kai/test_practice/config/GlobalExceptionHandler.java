@@ -1,31 +1,87 @@
 package com.kai.test_practice.config;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.kai.test_practice.entities.User;
+import com.kai.test_practice.exceptions.ConstraintViolations;
+import com.kai.test_practice.exceptions.TooManyRequestsException;
 import com.kai.test_practice.exceptions.UserNotFoundException;
+import com.kai.test_practice.exceptions.UserQueueFullException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.validation.ObjectError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.servlet.resource.NoResourceFoundException;
+
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 @RestControllerAdvice
 public class GlobalExceptionHandler {
 
+    private final MeterRegistry meterRegistry;
+    // 每種例外的 counter 只建立一次，之後不需要再組 tag 與查詢 registry
+    private final ConcurrentMap<Class<?>, Counter> errorCounters = new ConcurrentHashMap<>();
+
+    public GlobalExceptionHandler(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    // 依例外類型計數，可在 /actuator/prometheus 看到 users_errors_total{exception="..."}
+    private void countError(Exception ex) {
+        errorCounters.computeIfAbsent(ex.getClass(),
+                type -> meterRegistry.counter("users.errors", "exception", type.getSimpleName())).increment();
+    }
+
     // 處理 UserNotFoundException
     @ExceptionHandler(UserNotFoundException.class)
     @ResponseStatus(HttpStatus.NOT_FOUND)
     public ErrorResponse handleUserNotFoundException(UserNotFoundException ex) {
+        countError(ex);
         return new ErrorResponse("User not found", HttpStatus.NOT_FOUND.toString(), ex.getMessage());
     }
 
+    // 處理非同步建立佇列已滿，請客戶端稍後重試
+    @ExceptionHandler(UserQueueFullException.class)
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+    public ErrorResponse handleUserQueueFullException(UserQueueFullException ex) {
+        countError(ex);
+        return new ErrorResponse("Too many requests", HttpStatus.TOO_MANY_REQUESTS.toString(), ex.getMessage());
+    }
+
+    // 處理准入控制的拒絕，Retry-After 告訴客戶端多久之後再試
+    @ExceptionHandler(TooManyRequestsException.class)
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+    public ErrorResponse handleTooManyRequestsException(TooManyRequestsException ex, HttpServletResponse response) {
+        countError(ex);
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(ex.getRetryAfterSeconds()));
+        return new ErrorResponse("Too many requests", HttpStatus.TOO_MANY_REQUESTS.toString(), ex.getMessage());
+    }
+
     // 處理參數驗證失敗 (例如 @Valid 的驗證)
     @ExceptionHandler(MethodArgumentNotValidException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ErrorResponse handleValidationException(MethodArgumentNotValidException ex) {
-        // 提取所有錯誤訊息
-        String errorMessage = ex.getBindingResult().getAllErrors().stream()
-                .map(error -> error.getDefaultMessage())
-                .findFirst()
-                .orElse("Validation failed");
+        countError(ex);
+        // 驗證在第一個錯誤就停止（見 ValidationConfig），直接取第一個錯誤訊息
+        List<ObjectError> errors = ex.getBindingResult().getAllErrors();
+        String errorMessage = errors.isEmpty() ? "Validation failed" : errors.get(0).getDefaultMessage();
         return new ErrorResponse("Validation failed", HttpStatus.BAD_REQUEST.toString(), errorMessage);
 
     }
@@ -34,36 +90,59 @@ public class GlobalExceptionHandler {
     @ExceptionHandler(IllegalArgumentException.class)
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ErrorResponse handleIllegalArgumentException(IllegalArgumentException ex) {
+        countError(ex);
         return new ErrorResponse("Bad request", HttpStatus.BAD_REQUEST.toString(), ex.getMessage());
     }
 
+    // 處理資料庫約束違反，例如 email 唯一索引衝突
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ErrorResponse handleDataIntegrityViolationException(DataIntegrityViolationException ex) {
+        countError(ex);
+        String message = ConstraintViolations.isViolationOf(ex, User.EMAIL_UNIQUE_CONSTRAINT) ? "Email already exists" : "Data integrity violation";
+        return new ErrorResponse("Bad request", HttpStatus.BAD_REQUEST.toString(), message);
+    }
+
+    // 處理不存在的路徑（例如 prod profile 關閉的 Swagger 與 H2 console），不應被當成 500
+    @ExceptionHandler(NoResourceFoundException.class)
+    @ResponseStatus(HttpStatus.NOT_FOUND)
+    public ErrorResponse handleNoResourceFoundException(NoResourceFoundException ex) {
+        countError(ex);
+        return new ErrorResponse("Not found", HttpStatus.NOT_FOUND.toString(), ex.getMessage());
+    }
+
     // 處理其他未預期的異常
     @ExceptionHandler(Exception.class)
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public ErrorResponse handleGenericException(Exception ex) {
+        countError(ex);
         return new ErrorResponse("Internal server error", HttpStatus.INTERNAL_SERVER_ERROR.toString(), ex.getMessage());
     }
 
     // 定義統一的錯誤響應結構
-    static class ErrorResponse {
-        private String error;
-        private String httpStatus;
-        private String message;
-        private String timestamp;
+    // error 與 httpStatus 只有少數幾種組合，事先編碼成 SerializedString，序列化時直接寫出已編碼的內容
+    @JsonSerialize(using = ErrorResponseSerializer.class)
+    public static class ErrorResponse {
+        private static final ConcurrentMap<String, SerializedString> STATIC_PARTS = new ConcurrentHashMap<>();
+
+        private final SerializedString error;
+        private final SerializedString httpStatus;
+        private final String message;
+        private final String timestamp;
 
         public ErrorResponse(String error, String httpStatus, String message) {
-            this.error = error;
-            this.httpStatus = httpStatus;
+            this.error = STATIC_PARTS.computeIfAbsent(error, SerializedString::new);
+            this.httpStatus = STATIC_PARTS.computeIfAbsent(httpStatus, SerializedString::new);
             this.message = message;
-            this.timestamp = java.time.LocalDateTime.now().toString(); // 增加時間戳
+            this.timestamp = ErrorTimestamps.now(); // 增加時間戳
         }
 
         public String getError() {
-            return error;
+            return error.getValue();
         }
 
         public String getHttpStatus() {
-            return httpStatus;
+            return httpStatus.getValue();
         }
 
         public String getMessage() {
@@ -74,4 +153,62 @@ public class GlobalExceptionHandler {
             return timestamp;
         }
     }
+
+    // 依固定順序寫出欄位，欄位名稱與固定的值都使用預先編碼的 SerializedString
+    static class ErrorResponseSerializer extends StdSerializer<ErrorResponse> {
+        private static final SerializedString ERROR = new SerializedString("error");
+        private static final SerializedString HTTP_STATUS = new SerializedString("httpStatus");
+        private static final SerializedString MESSAGE = new SerializedString("message");
+        private static final SerializedString TIMESTAMP = new SerializedString("timestamp");
+
+        ErrorResponseSerializer() {
+            super(ErrorResponse.class);
+        }
+
+        @Override
+        public void serialize(ErrorResponse value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeStartObject(value);
+            generator.writeFieldName(ERROR);
+            generator.writeString(value.error);
+            generator.writeFieldName(HTTP_STATUS);
+            generator.writeString(value.httpStatus);
+            generator.writeFieldName(MESSAGE);
+            generator.writeString(value.message);
+            generator.writeFieldName(TIMESTAMP);
+            generator.writeString(value.timestamp);
+            generator.writeEndObject();
+        }
+    }
+
+    // 同一秒內的錯誤共用已格式化的日期時間，只補上毫秒，格式與 LocalDateTime.toString() 的毫秒精度相同
+    static final class ErrorTimestamps {
+        private static final DateTimeFormatter SECONDS = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss");
+        private static final ZoneId ZONE = ZoneId.systemDefault();
+
+        private record FormattedSecond(long epochSecond, String text) {
+        }
+
+        private static volatile FormattedSecond cached = new FormattedSecond(Long.MIN_VALUE, "");
+
+        private ErrorTimestamps() {
+        }
+
+        static String now() {
+            long millis = System.currentTimeMillis();
+            long epochSecond = Math.floorDiv(millis, 1000);
+            FormattedSecond second = cached;
+            if (second.epochSecond() != epochSecond) {
+                second = new FormattedSecond(epochSecond, SECONDS.format(LocalDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), ZONE)));
+                cached = second;
+            }
+            int milliOfSecond = (int) Math.floorMod(millis, 1000);
+            return new StringBuilder(second.text().length() + 4)
+                    .append(second.text())
+                    .append('.')
+                    .append((char) ('0' + milliOfSecond / 100))
+                    .append((char) ('0' + milliOfSecond / 10 % 10))
+                    .append((char) ('0' + milliOfSecond % 10))
+                    .toString();
+        }
+    }
 }
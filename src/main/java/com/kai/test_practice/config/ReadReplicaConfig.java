@@ -0,0 +1,109 @@
+package com.kai.test_practice.config;
+
+import com.kai.test_practice.datasource.CaffeineRecentUserWrites;
+import com.kai.test_practice.datasource.ConnectionPoolSizer;
+import com.kai.test_practice.datasource.NoOpRecentUserWrites;
+import com.kai.test_practice.datasource.RecentUserWrites;
+import com.kai.test_practice.datasource.ReplicaBalancing;
+import com.kai.test_practice.datasource.ReplicaPools;
+import com.kai.test_practice.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+public class ReadReplicaConfig {
+
+    static final String REPLICAS_ENABLED = "app.datasource.replicas.enabled";
+
+    // 設定 app.datasource.replicas.enabled=true 後，唯讀交易改由 replica 處理，取代 Spring Boot 預設的單一 DataSource
+    @Bean
+    @ConditionalOnProperty(name = REPLICAS_ENABLED, havingValue = "true")
+    public DataSource dataSource(ReplicaPools replicaPools,
+                                 @Value("${app.datasource.replicas.balancing:round-robin}") String balancing,
+                                 MeterRegistry meterRegistry) {
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(replicaPools.primary(), replicaPools.replicas(),
+                ReplicaBalancing.fromProperty(balancing), meterRegistry));
+    }
+
+    // 連線池不是 DataSource bean，不會被其他 BeanPostProcessor 包裝；關閉應用程式時由 ReplicaPools.close() 關閉
+    @Bean
+    @ConditionalOnProperty(name = REPLICAS_ENABLED, havingValue = "true")
+    public ReplicaPools replicaPools(DataSourceProperties properties,
+                                     @Value("${app.datasource.replicas.urls}") List<String> replicaUrls,
+                                     Environment environment,
+                                     MeterRegistry meterRegistry,
+                                     ObjectProvider<ConnectionPoolSizer> connectionPoolSizer) {
+        HikariDataSource primary = pool(properties, properties.getUrl(), ReplicaRoutingDataSource.PRIMARY, environment,
+                meterRegistry, connectionPoolSizer);
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < replicaUrls.size(); i++) {
+            replicas.add(pool(properties, replicaUrls.get(i), "replica-" + (i + 1), environment, meterRegistry, connectionPoolSizer));
+        }
+        return new ReplicaPools(primary, replicas);
+    }
+
+    // 每個連線池都套用 spring.datasource.hikari.* 的設定與 datasource-tuning 的連線池大小，並各自輸出 hikaricp_* 指標
+    private HikariDataSource pool(DataSourceProperties properties, String url, String name, Environment environment,
+                                  MeterRegistry meterRegistry, ObjectProvider<ConnectionPoolSizer> connectionPoolSizer) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).url(url).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(dataSource));
+        dataSource.setPoolName(name);
+        dataSource.setMetricRegistry(meterRegistry);
+        connectionPoolSizer.ifAvailable(sizer -> sizer.size(dataSource));
+        return dataSource;
+    }
+
+    // 本機以 H2 模擬 replica：在每個 replica 建立指向 primary users 資料表的唯讀 linked table，相當於沒有延遲的複寫
+    @Bean
+    @ConditionalOnProperty(name = "app.datasource.replicas.link-to-primary", havingValue = "true")
+    public ApplicationRunner linkReplicasToPrimary(DataSourceProperties properties,
+                                                   @Value("${app.datasource.replicas.urls}") List<String> replicaUrls) {
+        // H2 的 DDL 不接受參數，改為組成字串常值
+        String link = "CREATE LINKED TABLE IF NOT EXISTS users(" + String.join(", ",
+                literal(properties.determineDriverClassName()), literal(properties.getUrl()),
+                literal(properties.getUsername()), literal(properties.getPassword()), literal("PUBLIC"), literal("USERS")) + ") READONLY";
+        return args -> {
+            for (String replicaUrl : replicaUrls) {
+                new JdbcTemplate(new DriverManagerDataSource(replicaUrl, properties.getUsername(), properties.getPassword()))
+                        .execute(link);
+            }
+        };
+    }
+
+    private static String literal(String value) {
+        return value == null ? "''" : "'" + value.replace("'", "''") + "'";
+    }
+
+    // 寫入後的 window 時間內，同一個使用者的查詢改走 primary
+    @Bean
+    @ConditionalOnExpression("${" + REPLICAS_ENABLED + ":false} and ${app.datasource.read-your-writes.enabled:true}")
+    public RecentUserWrites caffeineRecentUserWrites(@Value("${app.datasource.read-your-writes.maximum-size:100000}") long maximumSize,
+                                                     @Value("${app.datasource.read-your-writes.window:5s}") Duration window) {
+        return new CaffeineRecentUserWrites(maximumSize, window);
+    }
+
+    @Bean
+    @ConditionalOnExpression("!(${" + REPLICAS_ENABLED + ":false} and ${app.datasource.read-your-writes.enabled:true})")
+    public RecentUserWrites noOpRecentUserWrites() {
+        return new NoOpRecentUserWrites();
+    }
+}
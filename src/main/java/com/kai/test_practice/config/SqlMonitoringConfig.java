@@ -0,0 +1,41 @@
+package com.kai.test_practice.config;
+
+import com.kai.test_practice.jdbc.ObservedDataSourcePostProcessor;
+import com.kai.test_practice.jdbc.SqlStatementMonitor;
+import com.kai.test_practice.jdbc.SqlStatsEndpoint;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConditionalOnProperty(name = "app.sql.monitoring.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlMonitoringConfig {
+
+    // 慢查詢與抽樣的 SQL 輸出到 logger "sql"，可用 logging.level.sql 控制
+    private static final Logger SQL_LOG = LoggerFactory.getLogger("sql");
+
+    @Bean
+    public SqlStatementMonitor sqlStatementMonitor(@Value("${app.sql.monitoring.slow-threshold:200ms}") Duration slowThreshold,
+                                                   @Value("${app.sql.monitoring.sample-rate:0.01}") double sampleRate,
+                                                   @Value("${app.sql.monitoring.buffer-size:1024}") int bufferSize,
+                                                   @Value("${app.sql.monitoring.max-statements:500}") int maxStatements) {
+        return new SqlStatementMonitor(slowThreshold, sampleRate, bufferSize, maxStatements, SQL_LOG::info);
+    }
+
+    // BeanPostProcessor 必須是 static，才不會讓這個設定類別提早初始化
+    @Bean
+    public static ObservedDataSourcePostProcessor observedDataSourcePostProcessor(ObjectProvider<SqlStatementMonitor> monitor) {
+        return new ObservedDataSourcePostProcessor(monitor);
+    }
+
+    @Bean
+    public SqlStatsEndpoint sqlStatsEndpoint(SqlStatementMonitor monitor) {
+        return new SqlStatsEndpoint(monitor);
+    }
+}
@@ -0,0 +1,33 @@
+package com.kai.test_practice.config;
+
+import com.kai.test_practice.cache.CaffeineUserCache;
+import com.kai.test_practice.cache.NoOpUserCache;
+import com.kai.test_practice.cache.UserCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+public class UserCacheConfig {
+
+    // 預設啟用 Caffeine 快取，設定 app.users.cache.enabled=false 可關閉
+    @Bean
+    @ConditionalOnProperty(name = "app.users.cache.enabled", havingValue = "true", matchIfMissing = true)
+    public UserCache caffeineUserCache(@Value("${app.users.cache.maximum-size:10000}") long maximumSize,
+                                       @Value("${app.users.cache.ttl:10m}") Duration ttl,
+                                       @Value("${app.users.cache.negative-maximum-size:10000}") long negativeMaximumSize,
+                                       @Value("${app.users.cache.negative-ttl:30s}") Duration negativeTtl,
+                                       MeterRegistry meterRegistry) {
+        return new CaffeineUserCache(maximumSize, ttl, negativeMaximumSize, negativeTtl, meterRegistry);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "app.users.cache.enabled", havingValue = "false")
+    public UserCache noOpUserCache() {
+        return new NoOpUserCache();
+    }
+}
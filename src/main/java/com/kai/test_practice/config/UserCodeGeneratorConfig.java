@@ -0,0 +1,28 @@
+package com.kai.test_practice.config;
+
+import com.kai.test_practice.generators.SnowflakeUserCodeGenerator;
+import com.kai.test_practice.generators.UserCodeGenerator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+
+@Configuration
+public class UserCodeGeneratorConfig {
+
+    // 每個節點需要不同的 node-id（0 ~ 1023）；多節點部署（prod）必須明確設定，未設定時啟動失敗，
+    // 單節點的開發環境未設定時使用 0
+    @Bean
+    @Lazy(false) // prod 啟用延遲初始化，仍要在啟動時檢查 node-id
+    public UserCodeGenerator userCodeGenerator(@Value("${app.users.code.node-id:-1}") long nodeId,
+                                               @Value("${app.users.code.require-node-id:false}") boolean requireNodeId) {
+        if (nodeId < 0) {
+            if (requireNodeId) {
+                throw new IllegalStateException("app.users.code.node-id is required: set it to a value between 0 and "
+                        + SnowflakeUserCodeGenerator.MAX_NODE_ID + " that is unique to this node");
+            }
+            nodeId = 0;
+        }
+        return new SnowflakeUserCodeGenerator(nodeId);
+    }
+}
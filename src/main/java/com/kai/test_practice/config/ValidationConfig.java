@@ -0,0 +1,16 @@
+package com.kai.test_practice.config;
+
+import org.hibernate.validator.HibernateValidatorConfiguration;
+import org.springframework.boot.autoconfigure.validation.ValidationConfigurationCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class ValidationConfig {
+
+    // 遇到第一個違反的約束就停止驗證，錯誤回應與批次匯入都只使用第一個錯誤訊息
+    @Bean
+    public ValidationConfigurationCustomizer failFastValidation() {
+        return configuration -> configuration.addProperty(HibernateValidatorConfiguration.FAIL_FAST, "true");
+    }
+}
@@ -0,0 +1,44 @@
+package com.kai.test_practice.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.kai.test_practice.compression.ResponseCompressionFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.util.unit.DataSize;
+
+import java.util.List;
+
+@Configuration
+public class WireFormatConfig {
+
+    // 依 Accept header 回傳 CBOR 或 Smile；以 Spring Boot 的 builder 建立，才會套用 fields= 使用的 filter 等設定，
+    // 取代 Spring MVC 預設的同類 converter，維持 JSON 優先的順序
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    // Tomcat 的 server.compression 只支援 gzip，zstd 由這個 filter 處理；gzip 也經過這裡的緩衝，
+    // 小於 min-response-size 的回應帶上 Content-Length，chunked 的小回應才不會被 Tomcat 以 gzip 壓縮得更大
+    @Bean
+    public FilterRegistrationBean<ResponseCompressionFilter> responseCompressionFilter(
+            @Value("${server.compression.enabled:false}") boolean gzipEnabled,
+            @Value("${server.compression.mime-types:application/json,application/cbor,application/x-jackson-smile}") List<String> mimeTypes,
+            @Value("${server.compression.min-response-size:2KB}") DataSize minResponseSize,
+            @Value("${app.compression.zstd.enabled:true}") boolean zstdEnabled,
+            @Value("${app.compression.zstd.level:3}") int level) {
+        return new FilterRegistrationBean<>(
+                new ResponseCompressionFilter(mimeTypes, (int) minResponseSize.toBytes(), gzipEnabled, zstdEnabled, level));
+    }
+}
@@ -0,0 +1,67 @@
+package com.kai.test_practice.controllers;
+
+import com.kai.test_practice.config.AsyncUserCreateConfig;
+import com.kai.test_practice.entities.AsyncCreateUserStatus;
+import com.kai.test_practice.entities.CreateUserRequest;
+import com.kai.test_practice.services.AsyncUserCreateService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+
+import java.net.URI;
+
+@RestController
+@RequestMapping("/users/async")
+@ConditionalOnProperty(name = AsyncUserCreateConfig.ENABLED_PROPERTY, havingValue = "true", matchIfMissing = true)
+@Tag(name = "User Management", description = "Endpoints for managing users")
+public class AsyncUserController {
+
+    private final AsyncUserCreateService asyncUserCreateService;
+
+    public AsyncUserController(AsyncUserCreateService asyncUserCreateService) {
+        this.asyncUserCreateService = asyncUserCreateService;
+    }
+
+    @Operation(summary = "Create a new user asynchronously",
+            description = "Queue a user for creation and return immediately; poll the status URL for the outcome")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "User accepted for creation",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = AsyncCreateUserStatus.class))),
+            @ApiResponse(responseCode = "400", description = "Invalid input or email already exists", content = @Content),
+            @ApiResponse(responseCode = "429", description = "Creation queue is full", content = @Content)
+    })
+    @PostMapping
+    public ResponseEntity<AsyncCreateUserStatus> createUser(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "User to create", required = true,
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = CreateUserRequest.class)))
+            @RequestBody @Valid CreateUserRequest user) {
+        AsyncCreateUserStatus status = asyncUserCreateService.submit(user);
+
+        URI location = ServletUriComponentsBuilder
+                .fromCurrentRequest()
+                .path("/{requestId}")
+                .buildAndExpand(status.getRequestId())
+                .toUri();
+
+        return ResponseEntity.accepted().location(location).body(status);
+    }
+
+    @Operation(summary = "Get async create status", description = "Check whether a queued user has been created")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Current status of the request",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = AsyncCreateUserStatus.class))),
+            @ApiResponse(responseCode = "404", description = "Unknown, expired or evicted request ID; statuses are kept for status-ttl and up to status-maximum-size entries", content = @Content)
+    })
+    @GetMapping("/{requestId}")
+    public ResponseEntity<AsyncCreateUserStatus> getStatus(@PathVariable String requestId) {
+        return ResponseEntity.of(asyncUserCreateService.getStatus(requestId));
+    }
+}
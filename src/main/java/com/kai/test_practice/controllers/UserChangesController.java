@@ -0,0 +1,46 @@
+package com.kai.test_practice.controllers;
+
+import com.kai.test_practice.services.UserChangeStreamService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/users")
+@Tag(name = "User Management", description = "Endpoints for managing users")
+public class UserChangesController {
+
+    private final UserChangeStreamService userChangeStreamService;
+
+    public UserChangesController(UserChangeStreamService userChangeStreamService) {
+        this.userChangeStreamService = userChangeStreamService;
+    }
+
+    @Operation(summary = "Stream user changes",
+            description = "Server-sent events for every user created after the subscription; reconnect with Last-Event-ID to resume. "
+                    + "The stream opens with a retry: field and a comment, then sends a comment every heartbeat interval. "
+                    + "Resuming within the recent events replays them in commit order. Resuming from an older ID replays from the "
+                    + "database in ID order instead: IDs are allocated before commit, so a user with a smaller ID that committed "
+                    + "after the client's Last-Event-ID was read can be missed in that case. Clients that need every user "
+                    + "should reconcile with GET /users after reconnecting.")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Stream of user-created events, the event id is the user ID",
+                    content = @Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE)),
+            @ApiResponse(responseCode = "429", description = "Too many subscribers or no free sender thread", content = @Content)
+    })
+    @GetMapping(value = "/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(
+            @Parameter(description = "ID of the last user received, events after it are sent first")
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return userChangeStreamService.subscribe(lastEventId);
+    }
+}
@@ -1,54 +1,177 @@
 package com.kai.test_practice.controllers;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.kai.test_practice.entities.BulkCreateUsersResponse;
 import com.kai.test_practice.entities.CreateUserRequest;
 import com.kai.test_practice.entities.User;
+import com.kai.test_practice.entities.UserPage;
+import com.kai.test_practice.entities.UserSearchRequest;
+import com.kai.test_practice.entities.UserSummary;
+import com.kai.test_practice.services.UserImportService;
 import com.kai.test_practice.services.UserService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
+import org.springdoc.core.annotations.ParameterObject;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.MappingJacksonValue;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("/users")
 @Tag(name = "User Management", description = "Endpoints for managing users")
 public class UserController {
 
+    private static final int STREAM_FLUSH_INTERVAL = 100;
+
     private final UserService userService;
+    private final UserImportService userImportService;
+    private final ObjectMapper objectMapper;
 
-    public UserController(UserService userService) {
+    public UserController(UserService userService, UserImportService userImportService, ObjectMapper objectMapper) {
         this.userService = userService;
+        this.userImportService = userImportService;
+        this.objectMapper = objectMapper;
     }
 
     @Operation(summary = "Get user by ID", description = "Retrieve a specific user by their unique ID")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "User found",
-                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = User.class))),
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = UserSummary.class))),
+            @ApiResponse(responseCode = "304", description = "User not modified since the given ETag", content = @Content),
             @ApiResponse(responseCode = "404", description = "User not found", content = @Content)
     })
     @GetMapping("/{id}")
-    public ResponseEntity<User> getUserById(@PathVariable Long id) {
-        User user = userService.getUserById(id);
-        return ResponseEntity.ok(user);
+    public ResponseEntity<UserSummary> getUserById(@PathVariable Long id, WebRequest request) {
+        UserSummary user = userService.getUserById(id);
+        // ETag 來自使用者的版本，If-None-Match 相符時回傳 304，不輸出內容；
+        // 使用弱 ETag，同一版本可以依 Accept 與 Accept-Encoding 輸出不同的格式與壓縮方式（Tomcat 不壓縮帶強 ETag 的回應）
+        String eTag = "W/\"" + (user.version() == null ? 0 : user.version()) + "\"";
+        if (request.checkNotModified(eTag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(eTag).body(user);
     }
 
-    @Operation(summary = "Get all users", description = "Retrieve a list of all users")
+    @Operation(summary = "Get users", description = "Retrieve a page of users ordered by ID, starting after the given ID cursor")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "List of users",
-                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = User.class)))
+            @ApiResponse(responseCode = "200", description = "Page of users",
+                    content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = UserSummary.class)))),
+            @ApiResponse(responseCode = "304", description = "Page not modified since the given ETag", content = @Content),
+            @ApiResponse(responseCode = "400", description = "Invalid limit or unknown field", content = @Content)
     })
     @GetMapping
-    public ResponseEntity<List<User>> getAllUsers() {
-        List<User> users = userService.getAllUsers();
-        return ResponseEntity.ok(users);
+    public ResponseEntity<MappingJacksonValue> getUsers(
+            @RequestParam(defaultValue = "0") Long after,
+            @RequestParam(defaultValue = "" + UserService.DEFAULT_PAGE_LIMIT) int limit,
+            @Parameter(description = "Comma-separated subset of id, name, email, code to include in each user", example = "id,name")
+            @RequestParam(required = false) Set<String> fields,
+            WebRequest request,
+            HttpServletResponse servletResponse) {
+        // 先用聚合版本比對 If-None-Match，相符時直接回傳 304，不讀取也不序列化該頁資料
+        if (request.checkNotModified("W/\"" + userService.getUsersVersion(after, limit) + "\"")) {
+            return null;
+        }
+        // 不相符時才讀取該頁，ETag 改由讀出的資料算出，兩次讀取之間有寫入時也不會把舊的版本配上新的內容
+        // checkNotModified 已經以聚合版本設定了 ETag header，這裡直接覆寫
+        UserPage page = userService.getUsersPage(after, limit);
+        servletResponse.setHeader(HttpHeaders.ETAG, "W/\"" + page.version() + "\"");
+        List<UserSummary> users = page.users();
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        // 該頁已滿代表可能還有下一頁，透過 Link header 提供下一頁的游標
+        if (users.size() == limit) {
+            URI next = ServletUriComponentsBuilder
+                    .fromCurrentRequest()
+                    .replaceQueryParam("after", users.get(users.size() - 1).id())
+                    .replaceQueryParam("limit", limit)
+                    .build()
+                    .toUri();
+            response.header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return response.body(withFields(users, fields));
+    }
+
+    // 依 fields= 參數只輸出指定的欄位，未指定時輸出全部欄位
+    private MappingJacksonValue withFields(Object value, Set<String> fields) {
+        MappingJacksonValue body = new MappingJacksonValue(value);
+        if (fields != null && !fields.isEmpty()) {
+            for (String field : fields) {
+                if (!UserSummary.FIELDS.contains(field)) {
+                    throw new IllegalArgumentException("Unknown field: " + field);
+                }
+            }
+            body.setFilters(new SimpleFilterProvider()
+                    .addFilter(UserSummary.FIELDS_FILTER, SimpleBeanPropertyFilter.filterOutAllExcept(fields)));
+        }
+        return body;
+    }
+
+    @Operation(summary = "Search users", description = "Find users by exact or prefix match on email (case-insensitive) and name")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Matching users, ordered by the prefix-matched column or by ID",
+                    content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = UserSummary.class)))),
+            @ApiResponse(responseCode = "400", description = "No search criteria, invalid limit or unknown field", content = @Content)
+    })
+    @GetMapping("/search")
+    public ResponseEntity<MappingJacksonValue> searchUsers(
+            @ParameterObject UserSearchRequest request,
+            @Parameter(description = "Comma-separated subset of id, name, email, code to include in each user", example = "id,name")
+            @RequestParam(required = false) Set<String> fields) {
+        return ResponseEntity.ok(withFields(userService.searchUsers(request), fields));
+    }
+
+    @Operation(summary = "Stream all users", description = "Stream every user as newline-delimited JSON, one row at a time")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Users as NDJSON",
+                    content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE, schema = @Schema(implementation = UserSummary.class)))
+    })
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamUsers() {
+        StreamingResponseBody body = outputStream -> {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream);
+            generator.setRootValueSeparator(null);
+            int[] count = {0};
+            userService.streamAllUsers(user -> {
+                try {
+                    generator.writeObject(user);
+                    generator.writeRaw('\n');
+                    // 定期 flush，讓資料一邊讀一邊送出，而不是累積在緩衝區
+                    if (++count[0] % STREAM_FLUSH_INTERVAL == 0) {
+                        generator.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.flush();
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
     @Operation(summary = "Create a new user", description = "Add a new user to the system")
@@ -72,5 +195,58 @@ public class UserController {
 
         return ResponseEntity.created(location).body(createdUser);
     }
-}
 
+    @Operation(summary = "Create users in bulk",
+            description = "Create many users from a JSON array or an NDJSON stream; items are validated and inserted in batches")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Per-item outcome of the import; a malformed item is reported as FAILED "
+                    + "and ends the import, items before it are still created",
+                    content = @Content(mediaType = "application/json", schema = @Schema(implementation = BulkCreateUsersResponse.class))),
+            @ApiResponse(responseCode = "400", description = "Request body cannot be read", content = @Content)
+    })
+    @PostMapping(path = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<BulkCreateUsersResponse> createUsers(
+            @io.swagger.v3.oas.annotations.parameters.RequestBody(description = "Users to create", required = true,
+                    content = {
+                            @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = CreateUserRequest.class))),
+                            @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE, schema = @Schema(implementation = CreateUserRequest.class))
+                    })
+            InputStream body) throws IOException {
+        // JSON 陣列與 NDJSON 都以串流方式逐筆解析，不會一次把整個請求讀進記憶體
+        try (MappingIterator<CreateUserRequest> requests = objectMapper.readerFor(CreateUserRequest.class).readValues(body)) {
+            return ResponseEntity.ok(userImportService.importUsers(malformedAsIllegalArgument(requests)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Malformed bulk request: " + e.getOriginalMessage());
+        }
+    }
+
+    // 解析到格式錯誤的項目時改丟出 IllegalArgumentException，由 UserImportService 記為 FAILED 並停止讀取
+    private static Iterator<CreateUserRequest> malformedAsIllegalArgument(MappingIterator<CreateUserRequest> requests) {
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                try {
+                    return requests.hasNext();
+                } catch (RuntimeException e) {
+                    throw malformed(e);
+                }
+            }
+
+            @Override
+            public CreateUserRequest next() {
+                try {
+                    return requests.next();
+                } catch (RuntimeException e) {
+                    throw malformed(e);
+                }
+            }
+        };
+    }
+
+    private static RuntimeException malformed(RuntimeException e) {
+        if (e.getCause() instanceof JsonProcessingException cause) {
+            return new IllegalArgumentException("Malformed bulk request: " + cause.getOriginalMessage(), e);
+        }
+        return e;
+    }
+}
@@ -0,0 +1,64 @@
+package com.kai.test_practice.controllers;
+
+import com.kai.test_practice.entities.UserExportFormat;
+import com.kai.test_practice.services.UserExportService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.util.zip.GZIPOutputStream;
+
+@RestController
+@RequestMapping("/users")
+@Tag(name = "User Management", description = "Endpoints for managing users")
+public class UserExportController {
+
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    private final UserExportService userExportService;
+
+    public UserExportController(UserExportService userExportService) {
+        this.userExportService = userExportService;
+    }
+
+    @Operation(summary = "Export all users", description = "Stream every user as CSV or NDJSON, optionally gzip-compressed")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "All users ordered by ID",
+                    content = {@Content(mediaType = "text/csv"), @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE)}),
+            @ApiResponse(responseCode = "400", description = "Unknown export format", content = @Content)
+    })
+    @GetMapping("/export")
+    public void exportUsers(
+            @Parameter(description = "Output format: csv or ndjson", example = "csv")
+            @RequestParam(defaultValue = "csv") String format,
+            @Parameter(description = "Compress the response with gzip")
+            @RequestParam(defaultValue = "false") boolean gzip,
+            HttpServletResponse response) throws IOException {
+        UserExportFormat exportFormat = UserExportFormat.fromParameter(format);
+
+        // 直接寫到 servlet 的輸出串流，同步寫出不受 async request timeout 限制，適合長時間的全量匯出
+        response.setContentType(exportFormat.getMediaType().toString());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename("users." + exportFormat.getExtension()).build().toString());
+        if (!gzip) {
+            userExportService.exportUsers(exportFormat, response.getOutputStream());
+            return;
+        }
+        response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        GZIPOutputStream output = new GZIPOutputStream(response.getOutputStream(), GZIP_BUFFER_SIZE);
+        userExportService.exportUsers(exportFormat, output);
+        output.finish();
+    }
+}
@@ -0,0 +1,29 @@
+package com.kai.test_practice.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+
+// 以 Caffeine 保存最近寫入的 id，超過 window 之後自動失效，數量也有上限
+public class CaffeineRecentUserWrites implements RecentUserWrites {
+
+    private final Cache<Long, Boolean> writes;
+
+    public CaffeineRecentUserWrites(long maximumSize, Duration window) {
+        this.writes = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(window)
+                .build();
+    }
+
+    @Override
+    public void record(Long id) {
+        writes.put(id, Boolean.TRUE);
+    }
+
+    @Override
+    public boolean contains(Long id) {
+        return writes.getIfPresent(id) != null;
+    }
+}
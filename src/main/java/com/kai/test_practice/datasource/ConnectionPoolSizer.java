@@ -0,0 +1,54 @@
+package com.kai.test_practice.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.core.Ordered;
+
+// 依 CPU 核心數設定連線池大小：核心數 × connectionsPerCore + effectiveSpindles（HikariCP 建議的公式），
+// 上限為同時可能使用連線的執行緒數，多出來的連線永遠不會被借出，只會增加資料庫的負擔
+@Slf4j
+public class ConnectionPoolSizer implements BeanPostProcessor, Ordered {
+
+    private final int connectionsPerCore;
+    private final int effectiveSpindles;
+    private final int maxThreads;
+    private final int availableProcessors;
+
+    public ConnectionPoolSizer(int connectionsPerCore, int effectiveSpindles, int maxThreads, int availableProcessors) {
+        if (connectionsPerCore < 1 || effectiveSpindles < 0 || maxThreads < 1) {
+            throw new IllegalArgumentException("Connections per core and max threads should be at least 1");
+        }
+        this.connectionsPerCore = connectionsPerCore;
+        this.effectiveSpindles = effectiveSpindles;
+        this.maxThreads = maxThreads;
+        this.availableProcessors = availableProcessors;
+    }
+
+    public int poolSize() {
+        return Math.min(availableProcessors * connectionsPerCore + effectiveSpindles, maxThreads);
+    }
+
+    // 在 spring.datasource.hikari.* 綁定之後、被 ObservedDataSourcePostProcessor 包裝之前調整
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof HikariDataSource dataSource) {
+            size(dataSource);
+        }
+        return bean;
+    }
+
+    // 固定大小的連線池，不會在流量高峰時才建立連線；不是 bean 的連線池（例如 replica）由建立者直接呼叫
+    public void size(HikariDataSource dataSource) {
+        int size = poolSize();
+        dataSource.setMaximumPoolSize(size);
+        dataSource.setMinimumIdle(size);
+        log.info("Connection pool {} sized to {} connections ({} cores, at most {} threads)",
+                dataSource.getPoolName(), size, availableProcessors, maxThreads);
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
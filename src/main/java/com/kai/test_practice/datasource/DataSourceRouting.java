@@ -0,0 +1,31 @@
+package com.kai.test_practice.datasource;
+
+import java.util.function.Supplier;
+
+// 讓唯讀交易中的某段程式改用 primary，例如剛寫入的資料還沒複寫到 replica 時
+public final class DataSourceRouting {
+
+    private static final ThreadLocal<Boolean> PRIMARY_REQUESTED = new ThreadLocal<>();
+
+    private DataSourceRouting() {
+    }
+
+    // 在 action 中取得的連線都來自 primary；連線是延遲取得的，所以在唯讀交易開始之後呼叫也有效
+    public static <T> T onPrimary(Supplier<T> action) {
+        Boolean previous = PRIMARY_REQUESTED.get();
+        PRIMARY_REQUESTED.set(Boolean.TRUE);
+        try {
+            return action.get();
+        } finally {
+            if (previous == null) {
+                PRIMARY_REQUESTED.remove();
+            } else {
+                PRIMARY_REQUESTED.set(previous);
+            }
+        }
+    }
+
+    static boolean isPrimaryRequested() {
+        return PRIMARY_REQUESTED.get() != null;
+    }
+}
@@ -0,0 +1,14 @@
+package com.kai.test_practice.datasource;
+
+// 沒有 replica 或關閉 read-your-writes 時使用
+public class NoOpRecentUserWrites implements RecentUserWrites {
+
+    @Override
+    public void record(Long id) {
+    }
+
+    @Override
+    public boolean contains(Long id) {
+        return false;
+    }
+}
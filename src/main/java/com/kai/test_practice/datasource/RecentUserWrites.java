@@ -0,0 +1,11 @@
+package com.kai.test_practice.datasource;
+
+// 記住最近寫入的使用者，讓這些使用者在 replica 追上之前改從 primary 讀取（read-your-writes）
+public interface RecentUserWrites {
+
+    // 使用者被建立或更新後呼叫
+    void record(Long id);
+
+    // 該使用者是否在複寫延遲的時間窗內被寫入過
+    boolean contains(Long id);
+}
@@ -0,0 +1,18 @@
+package com.kai.test_practice.datasource;
+
+import java.util.Locale;
+
+// 在多個 replica 之間分配唯讀連線的方式
+public enum ReplicaBalancing {
+    ROUND_ROBIN,
+    LEAST_CONNECTIONS;
+
+    // 對應設定檔中的 round-robin / least-connections
+    public static ReplicaBalancing fromProperty(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT).replace('-', '_'));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown replica balancing: " + value);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.kai.test_practice.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import java.util.List;
+
+// primary 與各 replica 的連線池；註冊為 bean，關閉應用程式時由 Spring 呼叫 close() 釋放所有連線
+public record ReplicaPools(HikariDataSource primary, List<HikariDataSource> replicas) implements AutoCloseable {
+
+    public ReplicaPools {
+        replicas = List.copyOf(replicas);
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(HikariDataSource::close);
+        primary.close();
+    }
+}
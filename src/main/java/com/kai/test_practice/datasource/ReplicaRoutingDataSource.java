@@ -0,0 +1,86 @@
+package com.kai.test_practice.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// 唯讀交易的連線交給 replica，其他連線（寫入、沒有交易、指定 primary）都交給 primary
+// 必須包在 LazyConnectionDataSourceProxy 裡，等交易的 readOnly 設定好之後才決定連線來源
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    public static final String PRIMARY = "primary";
+
+    private final List<HikariDataSource> replicas;
+    private final List<String> replicaKeys = new ArrayList<>();
+    private final ReplicaBalancing balancing;
+    private final AtomicInteger next = new AtomicInteger();
+    private final Map<String, Counter> routes = new HashMap<>();
+
+    public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicas, ReplicaBalancing balancing,
+                                    MeterRegistry meterRegistry) {
+        this.replicas = List.copyOf(replicas);
+        this.balancing = balancing;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        routes.put(PRIMARY, routeCounter(meterRegistry, PRIMARY));
+        for (HikariDataSource replica : this.replicas) {
+            String key = replica.getPoolName();
+            replicaKeys.add(key);
+            targets.put(key, replica);
+            routes.put(key, routeCounter(meterRegistry, key));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    // 每次取得實體連線時依目標計數，可在 /actuator/prometheus 看到 datasource_routes_total{target="..."}
+    private static Counter routeCounter(MeterRegistry meterRegistry, String target) {
+        return meterRegistry.counter("datasource.routes", "target", target);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        String key = replicas.isEmpty()
+                || !TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                || DataSourceRouting.isPrimaryRequested()
+                ? PRIMARY
+                : replicaKeys.get(selectReplica());
+        routes.get(key).increment();
+        return key;
+    }
+
+    private int selectReplica() {
+        int start = Math.floorMod(next.getAndIncrement(), replicas.size());
+        if (balancing == ReplicaBalancing.ROUND_ROBIN) {
+            return start;
+        }
+        // 選擇使用中連線最少的 replica；從輪替的位置開始比較，讓連線數相同時也能平均分配
+        int selected = start;
+        int fewest = Integer.MAX_VALUE;
+        for (int i = 0; i < replicas.size(); i++) {
+            int index = (start + i) % replicas.size();
+            int active = activeConnections(replicas.get(index));
+            if (active < fewest) {
+                fewest = active;
+                selected = index;
+            }
+        }
+        return selected;
+    }
+
+    private static int activeConnections(HikariDataSource replica) {
+        HikariPoolMXBean pool = replica.getHikariPoolMXBean();
+        return pool == null ? 0 : pool.getActiveConnections();
+    }
+}
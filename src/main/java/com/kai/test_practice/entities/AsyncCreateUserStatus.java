@@ -0,0 +1,45 @@
+package com.kai.test_practice.entities;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class AsyncCreateUserStatus {
+
+    public enum Status {
+        PENDING,
+        CREATED,
+        FAILED
+    }
+
+    @Schema(description = "ID of the accepted create request", example = "3f1c2b9e-4a7d-4d5e-9b8a-1c2d3e4f5a6b")
+    private String requestId;
+
+    @Schema(description = "Email of the submitted user", example = "johndoe@example.com")
+    private String email;
+
+    @Schema(description = "Whether the user is still queued, created or rejected")
+    private Status status;
+
+    @Schema(description = "ID of the created user, only set when status is CREATED", example = "1")
+    private Long id;
+
+    @Schema(description = "Reason the request was rejected, only set when status is FAILED", example = "Email already exists: johndoe@example.com")
+    private String error;
+
+    public static AsyncCreateUserStatus pending(String requestId, String email) {
+        return new AsyncCreateUserStatus(requestId, email, Status.PENDING, null, null);
+    }
+
+    public static AsyncCreateUserStatus of(String requestId, BulkCreateUserResult result) {
+        return result.getStatus() == BulkCreateUserResult.Status.CREATED
+                ? new AsyncCreateUserStatus(requestId, result.getEmail(), Status.CREATED, result.getId(), null)
+                : failed(requestId, result.getEmail(), result.getError());
+    }
+
+    public static AsyncCreateUserStatus failed(String requestId, String email, String error) {
+        return new AsyncCreateUserStatus(requestId, email, Status.FAILED, null, error);
+    }
+}
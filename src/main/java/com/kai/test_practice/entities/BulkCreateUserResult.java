@@ -0,0 +1,38 @@
+package com.kai.test_practice.entities;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class BulkCreateUserResult {
+
+    public enum Status {
+        CREATED,
+        FAILED
+    }
+
+    @Schema(description = "Zero-based position of the item in the request", example = "0")
+    private int index;
+
+    @Schema(description = "Email of the submitted user", example = "johndoe@example.com")
+    private String email;
+
+    @Schema(description = "Whether the item was created")
+    private Status status;
+
+    @Schema(description = "ID of the created user, only set when status is CREATED", example = "1")
+    private Long id;
+
+    @Schema(description = "Reason the item was rejected, only set when status is FAILED", example = "Email already exists: johndoe@example.com")
+    private String error;
+
+    public static BulkCreateUserResult created(int index, User user) {
+        return new BulkCreateUserResult(index, user.getEmail(), Status.CREATED, user.getId(), null);
+    }
+
+    public static BulkCreateUserResult failed(int index, String email, String error) {
+        return new BulkCreateUserResult(index, email, Status.FAILED, null, error);
+    }
+}
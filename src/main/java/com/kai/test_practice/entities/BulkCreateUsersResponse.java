@@ -0,0 +1,25 @@
+package com.kai.test_practice.entities;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+public class BulkCreateUsersResponse {
+
+    @Schema(description = "Number of users created", example = "2")
+    private final int created;
+
+    @Schema(description = "Number of items rejected", example = "1")
+    private final int failed;
+
+    @Schema(description = "Outcome of every submitted item, in request order")
+    private final List<BulkCreateUserResult> results;
+
+    public BulkCreateUsersResponse(List<BulkCreateUserResult> results) {
+        this.results = results;
+        this.created = (int) results.stream().filter(r -> r.getStatus() == BulkCreateUserResult.Status.CREATED).count();
+        this.failed = results.size() - created;
+    }
+}
@@ -1,12 +1,27 @@
 package com.kai.test_practice.entities;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.kai.test_practice.generators.UserCodeGenerator;
+import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import lombok.*;
 
+import java.util.Locale;
+
 @Entity
-@Table(name = "users")
+@Table(name = "users", uniqueConstraints = {
+        // email 唯一性由資料庫保證，跨執行緒、跨節點都有效
+        @UniqueConstraint(name = User.EMAIL_UNIQUE_CONSTRAINT, columnNames = "email"),
+        // 代碼由各節點的 node-id 區隔，設定錯誤造成重複時由資料庫擋下
+        @UniqueConstraint(name = User.CODE_UNIQUE_CONSTRAINT, columnNames = "code")
+}, indexes = {
+        // GET /users/search 使用的索引：email 不分大小寫的完全與前綴比對、name 的完全與前綴比對
+        // 附加 id 欄位，讓依 (欄位, id) 排序的結果可以直接沿著索引讀出，不需要額外排序
+        @Index(name = "idx_users_normalized_email", columnList = "normalized_email, id"),
+        @Index(name = "idx_users_name", columnList = "name, id")
+})
 @AllArgsConstructor
 @NoArgsConstructor
 @Getter
@@ -14,8 +29,13 @@ import lombok.*;
 @Builder
 public class User {
 
+    public static final String EMAIL_UNIQUE_CONSTRAINT = "uk_users_email";
+    public static final String CODE_UNIQUE_CONSTRAINT = "uk_users_code";
+
+    // 使用 sequence 搭配 pooled optimizer，一次取得一段 id，讓 Hibernate 可以批次 insert（IDENTITY 會關閉批次寫入）
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_seq")
+    @SequenceGenerator(name = "users_seq", sequenceName = "users_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank(message = "Name is required")
@@ -27,13 +47,29 @@ public class User {
 
     private String code;
 
+    // 樂觀鎖版本，每次更新都會遞增，同時作為 GET 回應 ETag 的來源
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
+    // 小寫的 email，讓不分大小寫的查詢也能使用索引
+    @JsonIgnore
+    @Schema(hidden = true)
+    @Column(name = "normalized_email")
+    private String normalizedEmail;
+
+    @PrePersist
+    @PreUpdate
+    void normalizeEmail() {
+        normalizedEmail = email == null ? null : email.toLowerCase(Locale.ROOT);
+    }
 
     //    create a new user
-    public static User createUser(CreateUserRequest userRequest) {
+    public static User createUser(CreateUserRequest userRequest, UserCodeGenerator codeGenerator) {
         return User.builder()
                 .name(userRequest.getName())
                 .email(userRequest.getEmail())
-                .code("USER-" + System.currentTimeMillis())
+                .code(codeGenerator.nextCode())
                 .build();
     }
 }
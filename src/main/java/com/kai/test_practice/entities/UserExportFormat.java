@@ -0,0 +1,36 @@
+package com.kai.test_practice.entities;
+
+import org.springframework.http.MediaType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+// GET /users/export 支援的輸出格式
+public enum UserExportFormat {
+    CSV(new MediaType("text", "csv", StandardCharsets.UTF_8)),
+    NDJSON(MediaType.APPLICATION_NDJSON);
+
+    private final MediaType mediaType;
+
+    UserExportFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    public MediaType getMediaType() {
+        return mediaType;
+    }
+
+    // 下載檔案的副檔名
+    public String getExtension() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    // 對應 format=csv / format=ndjson
+    public static UserExportFormat fromParameter(String value) {
+        try {
+            return valueOf(value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown export format: " + value);
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.kai.test_practice.entities;
+
+import java.util.List;
+
+// 一頁使用者與該頁的版本，版本由同一次查詢的資料算出，作為 GET /users 的 ETag
+public record UserPage(List<UserSummary> users, String version) {
+
+    // 筆數、最大 id 與版本總和，任何一筆新增、刪除或更新都會讓其中至少一個值改變
+    public static UserPage of(List<UserSummary> users) {
+        long maxId = users.isEmpty() ? 0 : users.get(users.size() - 1).id();
+        long versionSum = users.stream().mapToLong(user -> user.version() == null ? 0 : user.version()).sum();
+        return new UserPage(users, users.size() + "-" + maxId + "-" + versionSum);
+    }
+}
@@ -0,0 +1,27 @@
+package com.kai.test_practice.entities;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+@Data
+public class UserSearchRequest {
+
+    @Schema(description = "Exact email, case-insensitive", example = "JohnDoe@example.com")
+    private String email;
+
+    @Schema(description = "Email prefix, case-insensitive", example = "john")
+    private String emailPrefix;
+
+    @Schema(description = "Exact name", example = "John Doe")
+    private String name;
+
+    @Schema(description = "Name prefix, case-sensitive", example = "John")
+    private String namePrefix;
+
+    @Schema(description = "Maximum number of users to return", example = "100")
+    private int limit = 100;
+
+    public boolean hasCriteria() {
+        return email != null || emailPrefix != null || name != null || namePrefix != null;
+    }
+}
@@ -0,0 +1,26 @@
+package com.kai.test_practice.entities;
+
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.Set;
+
+// 讀取端點使用的唯讀投影，只查詢需要的欄位，不經過 persistence context
+@JsonFilter(UserSummary.FIELDS_FILTER)
+public record UserSummary(
+        @Schema(description = "ID of the user", example = "1") Long id,
+        @Schema(description = "Name of the user", example = "John Doe") String name,
+        @Schema(description = "Email of the user", example = "johndoe@example.com") String email,
+        @Schema(description = "Code of the user", example = "USER-01HZX3K5Q8N2P") String code,
+        // 只用來產生 ETag，不輸出到回應中
+        @JsonIgnore @Schema(hidden = true) Long version) {
+
+    // 對應 fields= 參數的 Jackson filter 名稱與可選欄位
+    public static final String FIELDS_FILTER = "userFields";
+    public static final Set<String> FIELDS = Set.of("id", "name", "email", "code");
+
+    public static UserSummary from(User user) {
+        return new UserSummary(user.getId(), user.getName(), user.getEmail(), user.getCode(), user.getVersion());
+    }
+}
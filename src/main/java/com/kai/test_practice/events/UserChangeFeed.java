@@ -0,0 +1,153 @@
+package com.kai.test_practice.events;
+
+import com.kai.test_practice.entities.UserSummary;
+import com.kai.test_practice.exceptions.TooManyRequestsException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// 程序內的使用者變更事件匯流排：保留最近的事件供斷線重連時補送，並把新事件放進每個訂閱者各自的有界佇列；
+// 訂閱者的佇列滿了就直接斷開該訂閱者，寫入端永遠不會等待
+@Component
+public class UserChangeFeed {
+
+    private final UserSummary[] replay;
+    private final int subscriberBuffer;
+    private final int maxSubscribers;
+    private final List<Subscription> subscribers = new ArrayList<>();
+    private final Counter dropped;
+    // 已發佈的事件總數，replay[(published - 1) % replay.length] 是最新的一筆
+    private long published;
+
+    public UserChangeFeed(@Value("${app.users.changes.replay-size:1024}") int replaySize,
+                          @Value("${app.users.changes.subscriber-buffer:1024}") int subscriberBuffer,
+                          @Value("${app.users.changes.max-subscribers:100}") int maxSubscribers,
+                          MeterRegistry meterRegistry) {
+        if (replaySize < 1 || subscriberBuffer < 1 || maxSubscribers < 1) {
+            throw new IllegalArgumentException("Change feed replay size, subscriber buffer and max subscribers should be at least 1");
+        }
+        this.replay = new UserSummary[replaySize];
+        this.subscriberBuffer = subscriberBuffer;
+        this.maxSubscribers = maxSubscribers;
+
+        // 可在 /actuator/prometheus 看到目前的訂閱者數與因為太慢被斷開的次數
+        this.dropped = meterRegistry.counter("users.changes.dropped");
+        meterRegistry.gauge("users.changes.subscribers", this, UserChangeFeed::subscriberCount);
+    }
+
+    // 交易提交後才收到事件；沒有交易時（例如 saveAndFlush 已自行提交）直接處理
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onUserCreated(UserCreatedEvent event) {
+        publish(event.user());
+    }
+
+    public synchronized void publish(UserSummary user) {
+        replay[(int) (published++ % replay.length)] = user;
+        for (Iterator<Subscription> iterator = subscribers.iterator(); iterator.hasNext(); ) {
+            Subscription subscription = iterator.next();
+            if (!subscription.queue.offer(user)) {
+                // 跟不上的訂閱者直接斷開，客戶端重連時以 Last-Event-ID 補送
+                subscription.dropped = true;
+                iterator.remove();
+                dropped.increment();
+            }
+        }
+    }
+
+    // lastEventId 為 null 時只接收新事件；在保留的事件中找得到時補送其後的事件，找不到時需要先從資料庫補送
+    public synchronized Subscription subscribe(Long lastEventId) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new TooManyRequestsException("Too many change feed subscribers, retry later", 1);
+        }
+        List<UserSummary> missed = List.of();
+        boolean catchUp = false;
+        if (lastEventId != null) {
+            missed = eventsAfter(lastEventId);
+            catchUp = missed == null;
+        }
+        Subscription subscription = new Subscription(catchUp, catchUp ? List.of() : missed);
+        subscribers.add(subscription);
+        return subscription;
+    }
+
+    public synchronized int subscriberCount() {
+        return subscribers.size();
+    }
+
+    private synchronized void unsubscribe(Subscription subscription) {
+        subscribers.remove(subscription);
+    }
+
+    // 回傳保留的事件中 lastEventId 之後的部分，依提交順序排列；lastEventId 不在保留範圍內時回傳 null
+    private List<UserSummary> eventsAfter(long lastEventId) {
+        long oldest = Math.max(0, published - replay.length);
+        for (long position = published - 1; position >= oldest; position--) {
+            if (replay[(int) (position % replay.length)].id() == lastEventId) {
+                List<UserSummary> missed = new ArrayList<>((int) (published - position - 1));
+                for (long next = position + 1; next < published; next++) {
+                    missed.add(replay[(int) (next % replay.length)]);
+                }
+                return missed;
+            }
+        }
+        return null;
+    }
+
+    // 關閉時放進佇列，讓等待中的 poll 立即返回，送出執行緒不必等到下一次心跳才結束
+    private static final UserSummary WAKE_UP = new UserSummary(null, null, null, null, null);
+
+    // 單一訂閱者的狀態，只由負責送出這個訂閱者事件的執行緒讀取
+    public final class Subscription implements AutoCloseable {
+        private final BlockingQueue<UserSummary> queue = new ArrayBlockingQueue<>(subscriberBuffer);
+        private final boolean catchUp;
+        private final List<UserSummary> missed;
+        private volatile boolean dropped;
+        private volatile boolean closed;
+
+        private Subscription(boolean catchUp, List<UserSummary> missed) {
+            this.catchUp = catchUp;
+            this.missed = missed;
+        }
+
+        // Last-Event-ID 已不在保留範圍內，需要先從資料庫補送
+        public boolean needsCatchUp() {
+            return catchUp;
+        }
+
+        // 從保留的事件中補送的部分
+        public List<UserSummary> missed() {
+            return missed;
+        }
+
+        // 等待下一個事件，逾時或已關閉時回傳 null
+        public UserSummary poll(Duration timeout) throws InterruptedException {
+            UserSummary user = queue.poll(timeout.toNanos(), TimeUnit.NANOSECONDS);
+            return user == WAKE_UP ? null : user;
+        }
+
+        public boolean isDropped() {
+            return dropped;
+        }
+
+        public boolean isClosed() {
+            return closed || dropped;
+        }
+
+        @Override
+        public void close() {
+            closed = true;
+            unsubscribe(this);
+            queue.offer(WAKE_UP);
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.kai.test_practice.events;
+
+import com.kai.test_practice.entities.UserSummary;
+
+// 使用者寫入後發佈的事件，在交易提交後才會送到 UserChangeFeed
+public record UserCreatedEvent(UserSummary user) {
+}
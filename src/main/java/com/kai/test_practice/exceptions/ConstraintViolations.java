@@ -0,0 +1,20 @@
+package com.kai.test_practice.exceptions;
+
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.Locale;
+
+// 判斷 DataIntegrityViolationException 違反的是哪一個唯一限制
+public final class ConstraintViolations {
+
+    private ConstraintViolations() {
+    }
+
+    // 優先使用 Hibernate 解析出的限制名稱；H2 回報的是由限制名稱衍生的索引名稱（例如 UK_USERS_EMAIL_INDEX_4），因此以包含比對
+    public static boolean isViolationOf(DataIntegrityViolationException e, String constraint) {
+        String name = e.getCause() instanceof ConstraintViolationException cause ? cause.getConstraintName() : null;
+        String detail = name != null ? name : e.getMostSpecificCause().getMessage();
+        return detail != null && detail.toLowerCase(Locale.ROOT).contains(constraint);
+    }
+}
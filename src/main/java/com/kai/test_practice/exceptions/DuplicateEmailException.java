@@ -0,0 +1,18 @@
+package com.kai.test_practice.exceptions;
+
+// email 已存在，沿用 IllegalArgumentException 的 400 回應；屬於預期中的業務錯誤，不需要堆疊追蹤
+public class DuplicateEmailException extends IllegalArgumentException {
+    public DuplicateEmailException(String email) {
+        super("Email already exists: " + email);
+    }
+
+    public DuplicateEmailException(String email, Throwable cause) {
+        super("Email already exists: " + email, cause);
+    }
+
+    // IllegalArgumentException 沒有可關閉堆疊追蹤的建構子，改為略過 fillInStackTrace
+    @Override
+    public synchronized Throwable fillInStackTrace() {
+        return this;
+    }
+}
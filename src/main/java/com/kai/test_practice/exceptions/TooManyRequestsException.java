@@ -0,0 +1,16 @@
+package com.kai.test_practice.exceptions;
+
+// 請求被准入控制拒絕，預期中的錯誤，不需要堆疊追蹤；retryAfterSeconds 對應 Retry-After header
+public class TooManyRequestsException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(String message, long retryAfterSeconds) {
+        super(message, null, false, false);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
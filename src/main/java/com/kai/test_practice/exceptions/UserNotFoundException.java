@@ -1,7 +1,8 @@
 package com.kai.test_practice.exceptions;
 
+// 預期中的業務錯誤，不需要堆疊追蹤，省下每次建立例外時走訪堆疊的成本
 public class UserNotFoundException extends RuntimeException {
     public UserNotFoundException(String message) {
-        super(message);
+        super(message, null, false, false);
     }
 }
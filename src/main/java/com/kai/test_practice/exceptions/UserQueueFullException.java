@@ -0,0 +1,8 @@
+package com.kai.test_practice.exceptions;
+
+// 預期中的業務錯誤，不需要堆疊追蹤
+public class UserQueueFullException extends RuntimeException {
+    public UserQueueFullException(String message) {
+        super(message, null, false, false);
+    }
+}
@@ -0,0 +1,57 @@
+package com.kai.test_practice.generators;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// Snowflake 風格的代碼產生器：41 bits 毫秒時間 + 10 bits 節點 + 12 bits 序號
+// 不需要查詢資料庫也不需要加鎖，同一節點產生的代碼嚴格遞增，不同節點之間不會重複
+public class SnowflakeUserCodeGenerator implements UserCodeGenerator {
+
+    public static final long EPOCH = 1704067200000L; // 2024-01-01T00:00:00Z
+    public static final int NODE_BITS = 10;
+    public static final int SEQUENCE_BITS = 12;
+    public static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+
+    private static final String PREFIX = "USER-";
+    private static final int ENCODED_LENGTH = 13; // 64 bits 以 base32 表示需要 13 個字元
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray(); // Crockford base32
+
+    private final long node;
+    private final LongSupplier clock;
+    // 上一次發出的 (時間 << SEQUENCE_BITS | 序號)，序號用完時會自動進位到下一毫秒
+    private final AtomicLong lastTimestampAndSequence = new AtomicLong();
+
+    public SnowflakeUserCodeGenerator(long nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    public SnowflakeUserCodeGenerator(long nodeId, LongSupplier clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node ID should be between 0 and " + MAX_NODE_ID);
+        }
+        this.node = nodeId << SEQUENCE_BITS;
+        this.clock = clock;
+    }
+
+    public long nextId() {
+        long candidate = (clock.getAsLong() - EPOCH) << SEQUENCE_BITS;
+        // 取「上一次 + 1」與「目前時間的第一個序號」中較大者，時鐘倒退時也保持遞增
+        long next = lastTimestampAndSequence.accumulateAndGet(candidate, (last, now) -> Math.max(last + 1, now));
+        long timestamp = next >>> SEQUENCE_BITS;
+        long sequence = next & ((1L << SEQUENCE_BITS) - 1);
+        return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | node | sequence;
+    }
+
+    @Override
+    public String nextCode() {
+        long id = nextId();
+        // 固定長度編碼，讓代碼的字串排序與產生順序一致；只配置一個 char[] 與結果字串
+        char[] chars = new char[PREFIX.length() + ENCODED_LENGTH];
+        PREFIX.getChars(0, PREFIX.length(), chars, 0);
+        for (int i = chars.length - 1; i >= PREFIX.length(); i--) {
+            chars[i] = ALPHABET[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(chars);
+    }
+}
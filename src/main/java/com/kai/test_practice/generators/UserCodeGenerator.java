@@ -0,0 +1,7 @@
+package com.kai.test_practice.generators;
+
+// 產生使用者代碼，實作必須是執行緒安全且不重複的
+public interface UserCodeGenerator {
+
+    String nextCode();
+}
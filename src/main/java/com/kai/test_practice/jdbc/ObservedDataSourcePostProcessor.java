@@ -0,0 +1,29 @@
+package com.kai.test_practice.jdbc;
+
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import javax.sql.DataSource;
+
+// 以 datasource-proxy 包裝容器中的 DataSource，所有 repository 的 SQL 都會經過 SqlStatementMonitor；
+// Statement.getConnection() 等方法回傳的也是包裝後的物件，不會繞過監控
+public class ObservedDataSourcePostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<SqlStatementMonitor> monitor;
+
+    public ObservedDataSourcePostProcessor(ObjectProvider<SqlStatementMonitor> monitor) {
+        this.monitor = monitor;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+            return ProxyDataSourceBuilder.create(beanName, dataSource)
+                    .listener(new SqlStatementListener(monitor.getObject()))
+                    .build();
+        }
+        return bean;
+    }
+}
@@ -0,0 +1,33 @@
+package com.kai.test_practice.jdbc;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+
+import java.util.List;
+
+// datasource-proxy 只在 Statement 的 execute* 前後呼叫，把 SQL 與耗時交給 SqlStatementMonitor
+public class SqlStatementListener implements QueryExecutionListener {
+
+    private static final String START_NANOS = SqlStatementListener.class.getName() + ".start";
+
+    private final SqlStatementMonitor monitor;
+
+    public SqlStatementListener(SqlStatementMonitor monitor) {
+        this.monitor = monitor;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        // ExecutionInfo 的耗時只有毫秒精度，自行以 nanoTime 計時
+        execInfo.addCustomValue(START_NANOS, System.nanoTime());
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        long nanos = System.nanoTime() - execInfo.getCustomValue(START_NANOS, Long.class);
+        // Statement.addBatch 累積的多個不同 SQL 合併計入其他敘述
+        String sql = queryInfoList.size() == 1 ? queryInfoList.get(0).getQuery() : null;
+        monitor.record(sql, nanos, !execInfo.isSuccess());
+    }
+}
@@ -0,0 +1,114 @@
+package com.kai.test_practice.jdbc;
+
+import jakarta.annotation.PreDestroy;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+// 取代 show-sql：記錄每個 SQL 敘述的統計，只輸出慢查詢與抽樣的查詢，並由背景執行緒非同步寫出 log
+public class SqlStatementMonitor {
+
+    // 超過上限的不同 SQL 合併計算，避免動態產生的 SQL 讓統計無限制成長
+    static final String OTHER_STATEMENTS = "(other statements)";
+
+    private final long slowThresholdNanos;
+    private final double sampleRate;
+    private final int maxStatements;
+    private final Consumer<String> sink;
+
+    private final ConcurrentMap<String, SqlStatementStats> statistics = new ConcurrentHashMap<>();
+    // ArrayBlockingQueue 以環狀陣列保存待寫出的 log，滿了就直接丟棄，不讓執行 SQL 的執行緒等待 I/O
+    private final BlockingQueue<LogEntry> buffer;
+    private final LongAdder dropped = new LongAdder();
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    public SqlStatementMonitor(Duration slowThreshold, double sampleRate, int bufferSize, int maxStatements, Consumer<String> sink) {
+        if (sampleRate < 0 || sampleRate > 1) {
+            throw new IllegalArgumentException("SQL sample rate should be between 0 and 1");
+        }
+        this.slowThresholdNanos = slowThreshold.toNanos();
+        this.sampleRate = sampleRate;
+        this.maxStatements = maxStatements;
+        this.sink = sink;
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        this.writer = new Thread(this::writeLogs, "sql-log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    // 每個 JDBC 敘述執行完成後呼叫
+    public void record(String sql, long nanos, boolean failed) {
+        String key = sql == null ? OTHER_STATEMENTS : sql;
+        SqlStatementStats stats = statistics.get(key);
+        if (stats == null) {
+            stats = statistics.size() < maxStatements
+                    ? statistics.computeIfAbsent(key, ignored -> new SqlStatementStats())
+                    : statistics.computeIfAbsent(OTHER_STATEMENTS, ignored -> new SqlStatementStats());
+        }
+        stats.record(nanos, failed);
+
+        boolean slow = nanos >= slowThresholdNanos;
+        if (slow || failed || (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate)) {
+            // 只放入原始資料，字串格式化留給背景執行緒
+            if (!buffer.offer(new LogEntry(slow, failed, nanos, key))) {
+                dropped.increment();
+            }
+        }
+    }
+
+    // 依總耗時由高到低排序
+    public List<SqlStatementStats.Snapshot> snapshot() {
+        return statistics.entrySet().stream()
+                .map(entry -> entry.getValue().snapshot(entry.getKey()))
+                .sorted(Comparator.comparingDouble(SqlStatementStats.Snapshot::totalMillis).reversed())
+                .toList();
+    }
+
+    public void reset() {
+        statistics.clear();
+    }
+
+    // 緩衝區已滿而沒有寫出的 log 筆數
+    public long droppedLogs() {
+        return dropped.sum();
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        running = false;
+        writer.join(TimeUnit.SECONDS.toMillis(5));
+    }
+
+    private void writeLogs() {
+        while (running || !buffer.isEmpty()) {
+            try {
+                LogEntry entry = buffer.poll(100, TimeUnit.MILLISECONDS);
+                if (entry != null) {
+                    sink.accept(entry.format());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                // 寫 log 失敗不應讓背景執行緒結束
+            }
+        }
+    }
+
+    private record LogEntry(boolean slow, boolean failed, long nanos, String sql) {
+        String format() {
+            String kind = failed ? "failed" : slow ? "slow" : "sampled";
+            return String.format("%s %.3f ms: %s", kind, nanos / 1_000_000.0, sql);
+        }
+    }
+}
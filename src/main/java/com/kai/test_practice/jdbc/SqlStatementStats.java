@@ -0,0 +1,37 @@
+package com.kai.test_practice.jdbc;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// 單一 SQL 敘述的累計次數與耗時，使用 LongAdder 讓多執行緒同時記錄時不互相競爭
+public class SqlStatementStats {
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    void record(long nanos, boolean failed) {
+        count.increment();
+        totalNanos.add(nanos);
+        if (failed) {
+            errors.increment();
+        }
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    Snapshot snapshot(String sql) {
+        long executions = count.sum();
+        long total = totalNanos.sum();
+        return new Snapshot(sql, executions, errors.sum(), toMillis(total),
+                executions == 0 ? 0 : toMillis(total / executions), toMillis(maxNanos.get()));
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    // /actuator/sqlstats 回傳的內容
+    public record Snapshot(String sql, long count, long errors, double totalMillis, double meanMillis, double maxMillis) {
+    }
+}
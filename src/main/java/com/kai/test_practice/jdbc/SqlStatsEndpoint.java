@@ -0,0 +1,31 @@
+package com.kai.test_practice.jdbc;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+
+import java.util.List;
+
+// GET /actuator/sqlstats 查看每個 SQL 敘述的次數與耗時，DELETE 清除統計
+@Endpoint(id = "sqlstats")
+public class SqlStatsEndpoint {
+
+    private final SqlStatementMonitor monitor;
+
+    public SqlStatsEndpoint(SqlStatementMonitor monitor) {
+        this.monitor = monitor;
+    }
+
+    @ReadOperation
+    public SqlStats statistics() {
+        return new SqlStats(monitor.droppedLogs(), monitor.snapshot());
+    }
+
+    @DeleteOperation
+    public void reset() {
+        monitor.reset();
+    }
+
+    public record SqlStats(long droppedLogs, List<SqlStatementStats.Snapshot> statements) {
+    }
+}
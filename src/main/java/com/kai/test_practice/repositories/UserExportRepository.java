@@ -0,0 +1,14 @@
+package com.kai.test_practice.repositories;
+
+import com.kai.test_practice.entities.UserSummary;
+
+import java.util.function.Consumer;
+
+// 全量讀取不經過 JPA，由這個 fragment 直接以 JDBC 游標逐筆讀取
+public interface UserExportRepository {
+
+    void forEachSummary(int fetchSize, Consumer<UserSummary> consumer);
+
+    // 預熱 email 預先過濾用，只讀取 email 欄位
+    void forEachEmail(int fetchSize, Consumer<String> consumer);
+}
@@ -0,0 +1,45 @@
+package com.kai.test_practice.repositories;
+
+import com.kai.test_practice.entities.UserSummary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.function.Consumer;
+
+class UserExportRepositoryImpl implements UserExportRepository {
+
+    private static final String EXPORT_SQL = "select id, name, email, code, version from users order by id";
+    private static final String EMAIL_SQL = "select email from users";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    UserExportRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // 只能往前讀的唯讀游標，每次只從資料庫取 fetchSize 筆，讀完的列不會被保留
+    @Override
+    public void forEachSummary(int fetchSize, Consumer<UserSummary> consumer) {
+        jdbcTemplate.query(forwardOnly(EXPORT_SQL, fetchSize), resultSet -> {
+            consumer.accept(new UserSummary(resultSet.getLong(1), resultSet.getString(2), resultSet.getString(3),
+                    resultSet.getString(4), resultSet.getLong(5)));
+        });
+    }
+
+    @Override
+    public void forEachEmail(int fetchSize, Consumer<String> consumer) {
+        jdbcTemplate.query(forwardOnly(EMAIL_SQL, fetchSize), resultSet -> {
+            consumer.accept(resultSet.getString(1));
+        });
+    }
+
+    private static PreparedStatementCreator forwardOnly(String sql, int fetchSize) {
+        return connection -> {
+            PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            return statement;
+        };
+    }
+}
@@ -0,0 +1,11 @@
+package com.kai.test_practice.repositories;
+
+// 某一頁使用者的聚合版本，任何一筆新增、刪除或更新都會讓其中至少一個值改變
+public interface UserPageVersion {
+
+    long getCount();
+
+    long getMaxId();
+
+    long getVersionSum();
+}
@@ -2,12 +2,52 @@ package com.kai.test_practice.repositories;
 
 
 import com.kai.test_practice.entities.User;
+import com.kai.test_practice.entities.UserSummary;
+import jakarta.persistence.QueryHint;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
-public interface UserRepository extends JpaRepository<User, Long> {
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+public interface UserRepository extends JpaRepository<User, Long>, JpaSpecificationExecutor<User>, UserSummaryRepository,
+        UserExportRepository {
 
     boolean existsByEmail(@NotNull @NotBlank(message = "Email is required") @Email(message = "Email should be valid") String email);
+
+    // 一次查出一批 email 中已存在的部分，取代逐筆呼叫 existsByEmail
+    @Query("select u.email from User u where u.email in :emails")
+    Set<String> findExistingEmails(@Param("emails") Collection<String> emails);
+
+    // 只查詢回應需要的欄位並直接建立 UserSummary，不會把實體放進 persistence context；
+    // GET /users/{id} 快取未命中時才呼叫，唯讀交易只在這裡開始，才會被導向 replica
+    @Transactional(readOnly = true)
+    @Query("select new com.kai.test_practice.entities.UserSummary(u.id, u.name, u.email, u.code, u.version) from User u where u.id = :id")
+    Optional<UserSummary> findSummaryById(@Param("id") Long id);
+
+    // Keyset 分頁：以 id 作為游標，只取出 id 大於 after 的下一批資料
+    @Query("select new com.kai.test_practice.entities.UserSummary(u.id, u.name, u.email, u.code, u.version) from User u where u.id > :after order by u.id")
+    List<UserSummary> findSummariesByIdGreaterThan(@Param("after") Long after, Limit limit);
+
+    // 只計算某一頁的筆數、最大 id 與版本總和，用來判斷該頁是否有變動，不需要讀出或序列化任何資料
+    @Query(value = "select count(*) as count, coalesce(max(p.id), 0) as maxId, coalesce(sum(p.version), 0) as versionSum "
+            + "from (select id, version from users where id > :after order by id limit :limit) p", nativeQuery = true)
+    UserPageVersion findPageVersion(@Param("after") Long after, @Param("limit") int limit);
+
+    // 以資料庫游標逐筆讀取所有使用者，必須在交易中使用並在用完後關閉
+    @Query("select new com.kai.test_practice.entities.UserSummary(u.id, u.name, u.email, u.code, u.version) from User u order by u.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<UserSummary> streamAllSummaries();
 }
@@ -0,0 +1,68 @@
+package com.kai.test_practice.repositories;
+
+import com.kai.test_practice.entities.User;
+import com.kai.test_practice.entities.UserSearchRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Locale;
+
+// 組合 GET /users/search 的查詢條件，每個條件都對應到 User 上宣告的索引
+public final class UserSpecifications {
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    private UserSpecifications() {
+    }
+
+    public static Specification<User> matching(UserSearchRequest request) {
+        Specification<User> spec = Specification.where(null);
+        if (request.getEmail() != null) {
+            spec = spec.and(emailEqualsIgnoreCase(request.getEmail()));
+        }
+        if (request.getEmailPrefix() != null) {
+            spec = spec.and(emailStartsWithIgnoreCase(request.getEmailPrefix()));
+        }
+        if (request.getName() != null) {
+            spec = spec.and(nameEquals(request.getName()));
+        }
+        if (request.getNamePrefix() != null) {
+            spec = spec.and(nameStartsWith(request.getNamePrefix()));
+        }
+        return spec;
+    }
+
+    // 前綴查詢依比對的欄位排序，資料庫才能沿著該欄位的索引讀取並在取滿筆數後停止；
+    // 若依 id 排序，資料庫會改走主鍵逐筆檢查，等同全表掃描
+    public static Sort sortFor(UserSearchRequest request) {
+        if (request.getEmailPrefix() != null) {
+            return Sort.by("normalizedEmail", "id");
+        }
+        if (request.getNamePrefix() != null) {
+            return Sort.by("name", "id");
+        }
+        return Sort.by("id");
+    }
+
+    // 與已轉成小寫的 normalized_email 比較，不需要在查詢時對欄位呼叫 lower()，才能使用索引
+    public static Specification<User> emailEqualsIgnoreCase(String email) {
+        return (root, query, cb) -> cb.equal(root.get("normalizedEmail"), email.toLowerCase(Locale.ROOT));
+    }
+
+    public static Specification<User> emailStartsWithIgnoreCase(String prefix) {
+        return (root, query, cb) -> cb.like(root.get("normalizedEmail"), escapeLike(prefix.toLowerCase(Locale.ROOT)) + "%", LIKE_ESCAPE);
+    }
+
+    public static Specification<User> nameEquals(String name) {
+        return (root, query, cb) -> cb.equal(root.get("name"), name);
+    }
+
+    public static Specification<User> nameStartsWith(String prefix) {
+        return (root, query, cb) -> cb.like(root.get("name"), escapeLike(prefix) + "%", LIKE_ESCAPE);
+    }
+
+    // 跳脫 LIKE 的萬用字元，讓前綴只會比對字面上的內容
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
@@ -0,0 +1,14 @@
+package com.kai.test_practice.repositories;
+
+import com.kai.test_practice.entities.User;
+import com.kai.test_practice.entities.UserSummary;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+// Specification 查詢的 fluent API 不支援 record 投影，由這個 fragment 以 Criteria API 直接查詢 UserSummary
+public interface UserSummaryRepository {
+
+    List<UserSummary> findSummaries(Specification<User> spec, Sort sort, int limit);
+}
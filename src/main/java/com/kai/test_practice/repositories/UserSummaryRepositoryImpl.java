@@ -0,0 +1,40 @@
+package com.kai.test_practice.repositories;
+
+import com.kai.test_practice.entities.User;
+import com.kai.test_practice.entities.UserSummary;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.util.List;
+
+class UserSummaryRepositoryImpl implements UserSummaryRepository {
+
+    private final EntityManager entityManager;
+
+    UserSummaryRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<UserSummary> findSummaries(Specification<User> spec, Sort sort, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<UserSummary> query = cb.createQuery(UserSummary.class);
+        Root<User> root = query.from(User.class);
+
+        // 只選取 UserSummary 需要的欄位
+        query.select(cb.construct(UserSummary.class, root.get("id"), root.get("name"), root.get("email"), root.get("code"), root.get("version")));
+        Predicate predicate = spec.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.orderBy(QueryUtils.toOrders(sort, root, cb));
+
+        return entityManager.createQuery(query).setMaxResults(limit).getResultList();
+    }
+}
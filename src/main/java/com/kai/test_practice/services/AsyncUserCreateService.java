@@ -0,0 +1,198 @@
+package com.kai.test_practice.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.kai.test_practice.cache.EmailFilter;
+import com.kai.test_practice.entities.AsyncCreateUserStatus;
+import com.kai.test_practice.entities.BulkCreateUserResult;
+import com.kai.test_practice.entities.BulkCreateUsersResponse;
+import com.kai.test_practice.entities.CreateUserRequest;
+import com.kai.test_practice.exceptions.DuplicateEmailException;
+import com.kai.test_practice.exceptions.UserQueueFullException;
+import com.kai.test_practice.repositories.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// 非同步建立使用者：請求先放進有界佇列並立即回應，由背景執行緒以批次交易寫入資料庫
+@Slf4j
+public class AsyncUserCreateService {
+
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    private final UserRepository userRepository;
+    private final EmailFilter emailFilter;
+    private final UserImportService userImportService;
+    private final BlockingQueue<PendingUser> queue;
+    private final int batchSize;
+    private final Duration shutdownTimeout;
+
+    // 已接受但尚未寫入的 email，避免同一個 email 在寫入前被重複接受
+    private final ConcurrentMap<String, String> reservedEmails = new ConcurrentHashMap<>();
+    private final Cache<String, AsyncCreateUserStatus> statuses;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "async-user-writer"));
+    // submit 在讀鎖內檢查 accepting 並放入佇列，shutdown 以寫鎖關閉；
+    // 關閉之後不會再有請求放入佇列，背景執行緒看到佇列已空就可以安全結束
+    private final ReadWriteLock acceptingLock = new ReentrantReadWriteLock();
+
+    private volatile boolean accepting = true;
+
+    public AsyncUserCreateService(UserRepository userRepository, EmailFilter emailFilter, UserImportService userImportService,
+                                  int queueCapacity, int batchSize, Duration statusTtl, long statusMaximumSize, Duration shutdownTimeout,
+                                  MeterRegistry meterRegistry) {
+        if (queueCapacity < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("Async queue capacity and batch size should be at least 1");
+        }
+        this.userRepository = userRepository;
+        this.emailFilter = emailFilter;
+        this.userImportService = userImportService;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.shutdownTimeout = shutdownTimeout;
+        // 除了保留時間之外也限制筆數，大量請求湧入時最舊的查詢結果會提早被移除，查詢時回傳 404
+        this.statuses = Caffeine.newBuilder()
+                .expireAfterWrite(statusTtl)
+                .maximumSize(statusMaximumSize)
+                .build();
+
+        // 佇列長度可在 /actuator/prometheus 看到 users_async_queue_size
+        meterRegistry.gauge("users.async.queue.size", queue, BlockingQueue::size);
+    }
+
+    @PostConstruct
+    public void start() {
+        writer.execute(this::drainQueue);
+    }
+
+    // 保留 email 後放入佇列，回傳可用來查詢結果的請求 id；佇列已滿時拋出 UserQueueFullException
+    public AsyncCreateUserStatus submit(CreateUserRequest request) {
+        acceptingLock.readLock().lock();
+        try {
+            if (!accepting) {
+                throw new UserQueueFullException("User creation queue is shutting down");
+            }
+            return enqueue(request);
+        } finally {
+            acceptingLock.readLock().unlock();
+        }
+    }
+
+    private AsyncCreateUserStatus enqueue(CreateUserRequest request) {
+        String requestId = UUID.randomUUID().toString();
+        if (reservedEmails.putIfAbsent(request.getEmail(), requestId) != null
+                || (emailFilter.mightContain(request.getEmail()) && userRepository.existsByEmail(request.getEmail()))) {
+            reservedEmails.remove(request.getEmail(), requestId);
+            throw new DuplicateEmailException(request.getEmail());
+        }
+
+        AsyncCreateUserStatus status = AsyncCreateUserStatus.pending(requestId, request.getEmail());
+        statuses.put(requestId, status);
+        if (!queue.offer(new PendingUser(requestId, request))) {
+            statuses.invalidate(requestId);
+            reservedEmails.remove(request.getEmail(), requestId);
+            throw new UserQueueFullException("User creation queue is full, retry later");
+        }
+        return status;
+    }
+
+    public Optional<AsyncCreateUserStatus> getStatus(String requestId) {
+        return Optional.ofNullable(statuses.getIfPresent(requestId));
+    }
+
+    // 停止接受新的請求，等背景執行緒把已接受的請求全部寫入後才結束；
+    // 逾時仍未寫入的請求記為 FAILED，查詢結果的客戶端可以知道需要重送
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        acceptingLock.writeLock().lock();
+        try {
+            accepting = false;
+        } finally {
+            acceptingLock.writeLock().unlock();
+        }
+        writer.shutdown();
+        if (!writer.awaitTermination(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+            writer.shutdownNow();
+            List<PendingUser> dropped = new ArrayList<>();
+            queue.drainTo(dropped);
+            log.warn("Async user writer did not drain within {}, {} request(s) marked as failed", shutdownTimeout, dropped.size());
+            for (PendingUser pending : dropped) {
+                fail(pending, "Server shut down before the user was created, retry later");
+            }
+        }
+    }
+
+    // 每次取出最多 batchSize 筆，交給 UserImportService 以一個交易批次寫入
+    private void drainQueue() {
+        List<PendingUser> batch = new ArrayList<>(batchSize);
+        while (accepting || !queue.isEmpty()) {
+            try {
+                PendingUser first = queue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            queue.drainTo(batch, batchSize - 1);
+            write(batch);
+            batch.clear();
+        }
+    }
+
+    private void write(List<PendingUser> batch) {
+        try {
+            BulkCreateUsersResponse response = userImportService.importUsers(batch.stream().map(PendingUser::request).iterator());
+            for (BulkCreateUserResult result : response.getResults()) {
+                String requestId = batch.get(result.getIndex()).requestId();
+                statuses.put(requestId, AsyncCreateUserStatus.of(requestId, result));
+            }
+        } catch (RuntimeException e) {
+            // 一筆資料造成的錯誤不應讓同一批的其他請求一起失敗，改為逐筆重試
+            log.warn("Failed to write {} queued user(s) as a batch, retrying one by one", batch.size(), e);
+            for (PendingUser pending : batch) {
+                writeOne(pending);
+            }
+        } finally {
+            // 寫入之後由資料庫的唯一索引保證 email 不重複，可以釋放保留
+            for (PendingUser pending : batch) {
+                reservedEmails.remove(pending.request().getEmail(), pending.requestId());
+            }
+        }
+    }
+
+    private void writeOne(PendingUser pending) {
+        try {
+            BulkCreateUserResult result = userImportService.importUsers(List.of(pending.request()).iterator()).getResults().get(0);
+            statuses.put(pending.requestId(), AsyncCreateUserStatus.of(pending.requestId(), result));
+        } catch (RuntimeException e) {
+            log.error("Failed to write queued user {}", pending.requestId(), e);
+            fail(pending, "Failed to create user");
+        }
+    }
+
+    private void fail(PendingUser pending, String error) {
+        statuses.put(pending.requestId(), AsyncCreateUserStatus.failed(pending.requestId(), pending.request().getEmail(), error));
+        reservedEmails.remove(pending.request().getEmail(), pending.requestId());
+    }
+
+    private record PendingUser(String requestId, CreateUserRequest request) {
+    }
+}
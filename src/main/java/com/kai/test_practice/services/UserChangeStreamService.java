@@ -0,0 +1,142 @@
+package com.kai.test_practice.services;
+
+import com.kai.test_practice.entities.UserSummary;
+import com.kai.test_practice.events.UserChangeFeed;
+import com.kai.test_practice.exceptions.TooManyRequestsException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// 把 UserChangeFeed 的事件以 SSE 送給 GET /users/changes 的客戶端，每個訂閱者由一條背景執行緒負責送出，
+// 客戶端寫得慢只會卡住自己的執行緒，佇列滿了由 UserChangeFeed 斷開；執行緒數的上限與訂閱者數的上限相同
+@Slf4j
+@Service
+public class UserChangeStreamService {
+
+    public static final String EVENT_NAME = "user-created";
+
+    private final UserChangeFeed userChangeFeed;
+    private final UserService userService;
+    private final Duration heartbeat;
+    private final Duration timeout;
+    private final Duration retry;
+    private final AtomicInteger threadCount = new AtomicInteger();
+    private final ThreadPoolExecutor senders;
+
+    public UserChangeStreamService(UserChangeFeed userChangeFeed, UserService userService,
+                                   @Value("${app.users.changes.heartbeat:15s}") Duration heartbeat,
+                                   @Value("${app.users.changes.timeout:30m}") Duration timeout,
+                                   @Value("${app.users.changes.retry:3s}") Duration retry,
+                                   @Value("${app.users.changes.max-subscribers:100}") int maxSubscribers) {
+        this.userChangeFeed = userChangeFeed;
+        this.userService = userService;
+        this.heartbeat = heartbeat;
+        this.timeout = timeout;
+        this.retry = retry;
+        // 剛斷線的訂閱者要等送出執行緒醒來才會釋出執行緒，這段期間新的訂閱者在佇列中等待
+        this.senders = new ThreadPoolExecutor(maxSubscribers, maxSubscribers, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(maxSubscribers), runnable -> {
+            Thread thread = new Thread(runnable, "user-changes-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.senders.allowCoreThreadTimeOut(true);
+    }
+
+    // 先訂閱再補送，補送期間的新事件會留在佇列中，不會漏掉；交界處可能重複送出，客戶端以 id 去重
+    public SseEmitter subscribe(Long lastEventId) {
+        UserChangeFeed.Subscription subscription = userChangeFeed.subscribe(lastEventId);
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(error -> subscription.close());
+        try {
+            // 立即送出重連間隔，客戶端馬上收到回應 header，不必等到第一次心跳
+            emitter.send(SseEmitter.event().reconnectTime(retry.toMillis()).comment("subscribed"));
+            senders.execute(() -> stream(subscription, lastEventId, emitter));
+        } catch (IOException e) {
+            subscription.close();
+            throw new UncheckedIOException(e);
+        } catch (RejectedExecutionException e) {
+            subscription.close();
+            throw new TooManyRequestsException("Too many change feed subscribers, retry later", 1);
+        }
+        return emitter;
+    }
+
+    // 關閉時中斷所有連線，不讓長連線拖住 graceful shutdown
+    @EventListener(ContextClosedEvent.class)
+    public void shutdown() {
+        senders.shutdownNow();
+    }
+
+    private void stream(UserChangeFeed.Subscription subscription, Long lastEventId, SseEmitter emitter) {
+        try {
+            if (subscription.needsCatchUp()) {
+                catchUp(lastEventId, emitter, subscription);
+            }
+            for (UserSummary user : subscription.missed()) {
+                send(emitter, user);
+            }
+            while (!subscription.isClosed()) {
+                UserSummary user = subscription.poll(heartbeat);
+                if (user != null) {
+                    send(emitter, user);
+                } else if (!subscription.isClosed()) {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                }
+            }
+            if (subscription.isDropped()) {
+                log.debug("Change feed subscriber fell behind and was dropped");
+            }
+            emitter.complete();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            emitter.complete();
+        } catch (IOException | IllegalStateException e) {
+            // 客戶端已斷線或 emitter 已逾時
+            subscription.close();
+        } catch (RuntimeException e) {
+            subscription.close();
+            emitter.completeWithError(e);
+        }
+    }
+
+    // Last-Event-ID 已不在保留的事件中，從資料庫依 id 分頁補送之後的使用者；
+    // id 由 sequence 預先分配，提交順序不一定等於 id 順序，因此補送時可能漏掉較晚提交的較小 id
+    private void catchUp(long lastEventId, SseEmitter emitter, UserChangeFeed.Subscription subscription) throws IOException {
+        long after = lastEventId;
+        List<UserSummary> page;
+        do {
+            page = userService.getUsers(after, UserService.MAX_PAGE_LIMIT);
+            for (UserSummary user : page) {
+                if (subscription.isClosed()) {
+                    return;
+                }
+                send(emitter, user);
+                after = user.id();
+            }
+        } while (page.size() == UserService.MAX_PAGE_LIMIT);
+    }
+
+    private void send(SseEmitter emitter, UserSummary user) throws IOException {
+        emitter.send(SseEmitter.event()
+                .id(String.valueOf(user.id()))
+                .name(EVENT_NAME)
+                .data(user, MediaType.APPLICATION_JSON));
+    }
+}
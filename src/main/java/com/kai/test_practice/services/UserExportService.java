@@ -0,0 +1,144 @@
+package com.kai.test_practice.services;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kai.test_practice.entities.UserExportFormat;
+import com.kai.test_practice.entities.UserSummary;
+import com.kai.test_practice.repositories.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+@Service
+public class UserExportService {
+
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+
+    private final UserRepository userRepository;
+    private final JsonFactory jsonFactory;
+    private final int fetchSize;
+
+    public UserExportService(UserRepository userRepository,
+                             ObjectMapper objectMapper,
+                             @Value("${app.users.export.fetch-size:1000}") int fetchSize) {
+        if (fetchSize < 1) {
+            throw new IllegalArgumentException("Export fetch size should be at least 1");
+        }
+        this.userRepository = userRepository;
+        this.jsonFactory = objectMapper.getFactory();
+        this.fetchSize = fetchSize;
+    }
+
+    // 把所有使用者依 id 順序寫到 output，每一列讀出後立刻寫出，記憶體用量只跟 fetch size 與緩衝區大小有關，回傳寫出的筆數
+    @Transactional(readOnly = true)
+    public long exportUsers(UserExportFormat format, OutputStream output) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), WRITE_BUFFER_SIZE);
+        RowWriter rows = format == UserExportFormat.CSV ? new CsvRowWriter(writer) : new NdjsonRowWriter(jsonFactory.createGenerator(writer));
+        long[] count = {0};
+        try {
+            userRepository.forEachSummary(fetchSize, user -> {
+                try {
+                    rows.write(user);
+                    count[0]++;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            // 通常是客戶端中斷連線
+            throw e.getCause();
+        }
+        rows.flush();
+        return count[0];
+    }
+
+    private interface RowWriter {
+        void write(UserSummary user) throws IOException;
+
+        void flush() throws IOException;
+    }
+
+    // RFC 4180：第一列為欄位名稱，包含逗號、引號或換行的值以雙引號包住
+    private static final class CsvRowWriter implements RowWriter {
+        private final Writer writer;
+
+        CsvRowWriter(Writer writer) throws IOException {
+            this.writer = writer;
+            writer.write("id,name,email,code\r\n");
+        }
+
+        @Override
+        public void write(UserSummary user) throws IOException {
+            writer.write(Long.toString(user.id()));
+            writer.write(',');
+            writeField(user.name());
+            writer.write(',');
+            writeField(user.email());
+            writer.write(',');
+            writeField(user.code());
+            writer.write("\r\n");
+        }
+
+        private void writeField(String value) throws IOException {
+            if (value == null) {
+                return;
+            }
+            // 開頭是公式字元的值在試算表中會被當成公式執行（CSV injection），前面加上 ' 讓它只被當成文字
+            if (!value.isEmpty() && "=+-@\t\r".indexOf(value.charAt(0)) >= 0) {
+                value = "'" + value;
+            }
+            boolean quote = false;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+            }
+            if (!quote) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+    }
+
+    // 直接寫出欄位，不經過 ObjectMapper 的反射與 fields filter
+    private static final class NdjsonRowWriter implements RowWriter {
+        private final JsonGenerator generator;
+
+        NdjsonRowWriter(JsonGenerator generator) {
+            this.generator = generator;
+            generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void write(UserSummary user) throws IOException {
+            generator.writeStartObject();
+            generator.writeNumberField("id", user.id());
+            generator.writeStringField("name", user.name());
+            generator.writeStringField("email", user.email());
+            generator.writeStringField("code", user.code());
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void flush() throws IOException {
+            generator.flush();
+        }
+    }
+}
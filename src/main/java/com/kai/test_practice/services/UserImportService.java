@@ -0,0 +1,203 @@
+package com.kai.test_practice.services;
+
+import com.kai.test_practice.cache.EmailFilter;
+import com.kai.test_practice.cache.UserCache;
+import com.kai.test_practice.datasource.RecentUserWrites;
+import com.kai.test_practice.entities.BulkCreateUserResult;
+import com.kai.test_practice.entities.BulkCreateUsersResponse;
+import com.kai.test_practice.entities.CreateUserRequest;
+import com.kai.test_practice.entities.User;
+import com.kai.test_practice.entities.UserSummary;
+import com.kai.test_practice.events.UserCreatedEvent;
+import com.kai.test_practice.generators.UserCodeGenerator;
+import com.kai.test_practice.repositories.UserRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.hibernate.Session;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+@Service
+public class UserImportService {
+
+    private final UserRepository userRepository;
+    private final UserService userService;
+    private final UserCache userCache;
+    private final UserCodeGenerator userCodeGenerator;
+    private final RecentUserWrites recentUserWrites;
+    private final EmailFilter emailFilter;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityManager entityManager;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public UserImportService(UserRepository userRepository,
+                             UserService userService,
+                             UserCache userCache,
+                             UserCodeGenerator userCodeGenerator,
+                             RecentUserWrites recentUserWrites,
+                             EmailFilter emailFilter,
+                             ApplicationEventPublisher eventPublisher,
+                             EntityManager entityManager,
+                             Validator validator,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${app.users.bulk.batch-size:500}") int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Bulk batch size should be at least 1");
+        }
+        this.userRepository = userRepository;
+        this.userService = userService;
+        this.userCache = userCache;
+        this.userCodeGenerator = userCodeGenerator;
+        this.recentUserWrites = recentUserWrites;
+        this.emailFilter = emailFilter;
+        this.eventPublisher = eventPublisher;
+        this.entityManager = entityManager;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    // 逐批讀取請求並寫入，每一批各自一個交易，讓記憶體用量只跟批次大小有關；
+    // 之前的批次已經提交，讀取失敗（requests 丟出 IllegalArgumentException，例如格式錯誤的項目）時
+    // 仍寫入已讀取的項目，把讀不出來的項目記為 FAILED，之後的項目不再讀取
+    public BulkCreateUsersResponse importUsers(Iterator<CreateUserRequest> requests) {
+        List<BulkCreateUserResult> results = new ArrayList<>();
+        List<CreateUserRequest> chunk = new ArrayList<>(batchSize);
+        String readError = null;
+        while (readError == null) {
+            try {
+                if (!requests.hasNext()) {
+                    break;
+                }
+                chunk.add(requests.next());
+            } catch (IllegalArgumentException e) {
+                readError = e.getMessage();
+                break;
+            }
+            if (chunk.size() == batchSize) {
+                results.addAll(importChunk(chunk, results.size()));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            results.addAll(importChunk(chunk, results.size()));
+        }
+        if (readError != null) {
+            results.add(BulkCreateUserResult.failed(results.size(), null, readError));
+        }
+        return new BulkCreateUsersResponse(results);
+    }
+
+    private List<BulkCreateUserResult> importChunk(List<CreateUserRequest> chunk, int offset) {
+        BulkCreateUserResult[] results = new BulkCreateUserResult[chunk.size()];
+
+        // 先做欄位驗證，並排除同一批中重複的 email
+        Set<String> chunkEmails = new HashSet<>();
+        List<Integer> candidates = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            CreateUserRequest request = chunk.get(i);
+            String error = validate(request);
+            if (error == null && !chunkEmails.add(request.getEmail())) {
+                error = "Email already exists: " + request.getEmail();
+            }
+            if (error != null) {
+                results[i] = BulkCreateUserResult.failed(offset + i, request == null ? null : request.getEmail(), error);
+            } else {
+                candidates.add(i);
+            }
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> insertCandidates(chunk, candidates, chunkEmails, results, offset));
+        } catch (DataIntegrityViolationException e) {
+            // 檢查之後有其他請求寫入了相同的 email，或使用者代碼重複，整批已回滾；
+            // 改為逐筆建立，email 衝突的項目記為 FAILED，代碼重複的項目由 createUser 換一個代碼重試
+            for (int i : candidates) {
+                results[i] = createOne(chunk.get(i), offset + i);
+            }
+        }
+        return List.of(results);
+    }
+
+    private void insertCandidates(List<CreateUserRequest> chunk, List<Integer> candidates, Set<String> chunkEmails,
+                                  BulkCreateUserResult[] results, int offset) {
+        entityManager.unwrap(Session.class).setJdbcBatchSize(batchSize);
+
+        // 一次查詢整批 email，取代逐筆 existsByEmail；預先過濾確定不存在的 email 不放進查詢條件
+        Set<String> probeEmails = new HashSet<>();
+        for (String email : chunkEmails) {
+            if (emailFilter.mightContain(email)) {
+                probeEmails.add(email);
+            }
+        }
+        Set<String> existingEmails = probeEmails.isEmpty() ? Set.of() : userRepository.findExistingEmails(probeEmails);
+
+        List<Integer> inserted = new ArrayList<>(candidates.size());
+        List<User> users = new ArrayList<>(candidates.size());
+        for (int i : candidates) {
+            CreateUserRequest request = chunk.get(i);
+            if (existingEmails.contains(request.getEmail())) {
+                results[i] = BulkCreateUserResult.failed(offset + i, request.getEmail(), "Email already exists: " + request.getEmail());
+            } else {
+                inserted.add(i);
+                users.add(User.createUser(request, userCodeGenerator));
+            }
+        }
+
+        userRepository.saveAll(users);
+        // 經過 repository 才會把唯一索引衝突轉成 DataIntegrityViolationException，觸發逐筆建立的退回流程
+        userRepository.flush();
+        entityManager.clear();
+
+        for (int j = 0; j < users.size(); j++) {
+            int i = inserted.get(j);
+            results[i] = BulkCreateUserResult.created(offset + i, users.get(j));
+        }
+
+        // 快取、Bloom filter 與變更事件都等這一批的交易提交後才更新，回滾時不會留下不存在的使用者
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                for (User user : users) {
+                    // 只清除可能被記為不存在的 id，不讓大量匯入把熱門資料擠出快取
+                    userCache.evict(user.getId());
+                    recentUserWrites.record(user.getId());
+                    emailFilter.put(user.getEmail());
+                    eventPublisher.publishEvent(new UserCreatedEvent(UserSummary.from(user)));
+                }
+            }
+        });
+    }
+
+    private BulkCreateUserResult createOne(CreateUserRequest request, int index) {
+        try {
+            return BulkCreateUserResult.created(index, userService.createUser(request));
+        } catch (IllegalArgumentException e) {
+            return BulkCreateUserResult.failed(index, request.getEmail(), e.getMessage());
+        }
+    }
+
+    // 回傳第一個驗證錯誤訊息，驗證通過則回傳 null
+    private String validate(CreateUserRequest request) {
+        if (request == null) {
+            return "Item is required";
+        }
+        Set<ConstraintViolation<CreateUserRequest>> violations = validator.validate(request);
+        return violations.isEmpty() ? null : violations.iterator().next().getMessage();
+    }
+}
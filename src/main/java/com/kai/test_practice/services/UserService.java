@@ -1,42 +1,145 @@
 package com.kai.test_practice.services;
 
+import com.kai.test_practice.cache.EmailFilter;
+import com.kai.test_practice.cache.UserCache;
+import com.kai.test_practice.datasource.DataSourceRouting;
+import com.kai.test_practice.datasource.RecentUserWrites;
 import com.kai.test_practice.entities.CreateUserRequest;
 import com.kai.test_practice.entities.User;
+import com.kai.test_practice.entities.UserPage;
+import com.kai.test_practice.entities.UserSearchRequest;
+import com.kai.test_practice.entities.UserSummary;
+import com.kai.test_practice.events.UserCreatedEvent;
+import com.kai.test_practice.exceptions.ConstraintViolations;
+import com.kai.test_practice.exceptions.DuplicateEmailException;
 import com.kai.test_practice.exceptions.UserNotFoundException;
+import com.kai.test_practice.generators.UserCodeGenerator;
+import com.kai.test_practice.repositories.UserPageVersion;
 import com.kai.test_practice.repositories.UserRepository;
+import com.kai.test_practice.repositories.UserSpecifications;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
 
 @Service
 public class UserService {
 
+    public static final int DEFAULT_PAGE_LIMIT = 100;
+    public static final int MAX_PAGE_LIMIT = 1000;
+    // 使用者代碼與既有資料重複時最多嘗試的次數
+    private static final int CODE_COLLISION_ATTEMPTS = 3;
 
     private final UserRepository userRepository;
+    private final UserCache userCache;
+    private final UserCodeGenerator userCodeGenerator;
+    private final RecentUserWrites recentUserWrites;
+    private final EmailFilter emailFilter;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public UserService(UserRepository userRepository) {
+    public UserService(UserRepository userRepository, UserCache userCache, UserCodeGenerator userCodeGenerator,
+                       RecentUserWrites recentUserWrites, EmailFilter emailFilter, ApplicationEventPublisher eventPublisher) {
         this.userRepository = userRepository;
+        this.userCache = userCache;
+        this.userCodeGenerator = userCodeGenerator;
+        this.recentUserWrites = recentUserWrites;
+        this.emailFilter = emailFilter;
+        this.eventPublisher = eventPublisher;
     }
 
-    // 獲取所有使用者
-    public List<User> getAllUsers() {
-        return userRepository.findAll();
+    // 以 keyset 分頁取得使用者，回傳 id 大於 after 的最多 limit 筆資料
+    @Transactional(readOnly = true)
+    public List<UserSummary> getUsers(Long after, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_LIMIT) {
+            throw new IllegalArgumentException("Limit should be between 1 and " + MAX_PAGE_LIMIT);
+        }
+        return userRepository.findSummariesByIdGreaterThan(after == null ? 0L : after, Limit.of(limit));
+    }
+
+    // 以聚合值代表某一頁的版本，作為 GET /users 的 ETag，不需要讀出該頁的資料；格式與 UserPage.of 相同
+    @Transactional(readOnly = true)
+    public String getUsersVersion(Long after, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_LIMIT) {
+            throw new IllegalArgumentException("Limit should be between 1 and " + MAX_PAGE_LIMIT);
+        }
+        UserPageVersion version = userRepository.findPageVersion(after == null ? 0L : after, limit);
+        return version.getCount() + "-" + version.getMaxId() + "-" + version.getVersionSum();
+    }
+
+    // 取得一頁使用者與該頁的版本，版本由同一份資料算出，ETag 與回應內容一定一致
+    @Transactional(readOnly = true)
+    public UserPage getUsersPage(Long after, int limit) {
+        return UserPage.of(getUsers(after, limit));
+    }
+
+    // 依 email 或 name 搜尋使用者，最多回傳 limit 筆
+    @Transactional(readOnly = true)
+    public List<UserSummary> searchUsers(UserSearchRequest request) {
+        if (!request.hasCriteria()) {
+            throw new IllegalArgumentException("At least one of email, emailPrefix, name or namePrefix is required");
+        }
+        int limit = request.getLimit();
+        if (limit < 1 || limit > MAX_PAGE_LIMIT) {
+            throw new IllegalArgumentException("Limit should be between 1 and " + MAX_PAGE_LIMIT);
+        }
+        return userRepository.findSummaries(UserSpecifications.matching(request), UserSpecifications.sortFor(request), limit);
     }
 
-    // 創建新使用者
-    public synchronized  User createUser(CreateUserRequest userRequest) {
-        // 檢查 email 是否已存在
-        if (userRepository.existsByEmail(userRequest.getEmail())) {
-            throw new IllegalArgumentException("Email already exists: " + userRequest.getEmail());
+    // 逐筆串流所有使用者，投影不會留在 persistence context，記憶體用量不隨資料量成長
+    @Transactional(readOnly = true)
+    public void streamAllUsers(Consumer<UserSummary> consumer) {
+        try (Stream<UserSummary> users = userRepository.streamAllSummaries()) {
+            users.forEach(consumer);
         }
+    }
 
-        User newUser = User.createUser(userRequest);
-        return userRepository.save(newUser);
+    // 創建新使用者，不再加鎖，由資料庫的唯一索引處理同時建立相同 email 的情況
+    public User createUser(CreateUserRequest userRequest) {
+        // 先檢查 email 是否已存在，大部分重複的請求可以在這裡就被擋下；預先過濾確定不存在的新 email 不需要查詢資料庫
+        if (emailFilter.mightContain(userRequest.getEmail()) && userRepository.existsByEmail(userRequest.getEmail())) {
+            throw new DuplicateEmailException(userRequest.getEmail());
+        }
+
+        for (int attempt = 1; ; attempt++) {
+            User newUser = User.createUser(userRequest, userCodeGenerator);
+            try {
+                User savedUser = userRepository.saveAndFlush(newUser);
+                recentUserWrites.record(savedUser.getId());
+                emailFilter.put(savedUser.getEmail());
+                UserSummary summary = UserSummary.from(savedUser);
+                userCache.put(summary);
+                // 交易提交後才會送到 GET /users/changes 的訂閱者
+                eventPublisher.publishEvent(new UserCreatedEvent(summary));
+                return savedUser;
+            } catch (DataIntegrityViolationException e) {
+                if (ConstraintViolations.isViolationOf(e, User.EMAIL_UNIQUE_CONSTRAINT)) {
+                    // 檢查與寫入之間被其他請求搶先寫入相同 email
+                    throw new DuplicateEmailException(userRequest.getEmail(), e);
+                }
+                if (!ConstraintViolations.isViolationOf(e, User.CODE_UNIQUE_CONSTRAINT)) {
+                    throw e;
+                }
+                // 代碼重複不是客戶端的錯誤，換一個代碼重試；一直重複代表 node-id 設定錯誤或時鐘倒退，回傳 500
+                if (attempt == CODE_COLLISION_ATTEMPTS) {
+                    throw new IllegalStateException("User code collided " + attempt
+                            + " times, check that app.users.code.node-id is unique per node", e);
+                }
+            }
+        }
     }
 
-    // 通過ID獲取使用者
-    public User getUserById(Long id) {
-        return userRepository.findById(id)
+    // 通過ID獲取使用者，先查快取，沒有才查資料庫；剛寫入的使用者從 primary 讀取，不受 replica 複寫延遲影響。
+    // 不在這裡開始交易，快取命中時不需要取得連線，唯讀交易由 findSummaryById 開始
+    public UserSummary getUserById(Long id) {
+        Supplier<Optional<UserSummary>> lookup = () -> userCache.get(id, userRepository::findSummaryById);
+        return (recentUserWrites.contains(id) ? DataSourceRouting.onPrimary(lookup) : lookup.get())
                 .orElseThrow(() -> new UserNotFoundException("User with ID " + id + " not found."));
     }
 
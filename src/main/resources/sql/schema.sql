@@ -0,0 +1,17 @@
+-- prod profile 使用的資料表結構，Hibernate 只驗證不產生；修改 User 實體時需同步更新
+CREATE SEQUENCE IF NOT EXISTS users_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS users (
+    id               BIGINT       NOT NULL,
+    version          BIGINT       NOT NULL,
+    code             VARCHAR(255),
+    email            VARCHAR(255),
+    name             VARCHAR(255),
+    normalized_email VARCHAR(255),
+    PRIMARY KEY (id),
+    CONSTRAINT uk_users_email UNIQUE (email),
+    CONSTRAINT uk_users_code UNIQUE (code)
+);
+
+CREATE INDEX IF NOT EXISTS idx_users_normalized_email ON users (normalized_email, id);
+CREATE INDEX IF NOT EXISTS idx_users_name ON users (name, id);
@@ -1,2 +1,2 @@
-INSERT INTO users (name, email, code) VALUES ('John Doe', 'john.doe@example.com', 'johb_cde');
-INSERT INTO users (name, email, code) VALUES ('Jane Smith', 'jane.smith@example.com', 'jane_code');
+INSERT INTO users (id, name, email, normalized_email, code, version) VALUES (NEXT VALUE FOR users_seq, 'John Doe', 'john.doe@example.com', 'john.doe@example.com', 'johb_cde', 0);
+INSERT INTO users (id, name, email, normalized_email, code, version) VALUES (NEXT VALUE FOR users_seq, 'Jane Smith', 'jane.smith@example.com', 'jane.smith@example.com', 'jane_code', 0);
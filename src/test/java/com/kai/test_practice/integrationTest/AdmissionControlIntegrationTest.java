@@ -0,0 +1,58 @@
+package com.kai.test_practice.integrationTest;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// 每個客戶端只能連續送出 2 個請求，之後每 10 秒補 1 個
+@SpringBootTest(properties = {
+        "app.admission.rate-limit.requests-per-second=0.1",
+        "app.admission.rate-limit.burst=2",
+        "app.admission.rate-limit.client-header=X-Client-Id"
+})
+@AutoConfigureMockMvc
+@Sql(scripts = "/sql/test-data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "/sql/cleanup.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+public class AdmissionControlIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void testAbusiveClientIsThrottledWithoutAffectingOthers() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            mockMvc.perform(get("/users").header("X-Client-Id", "abusive"))
+                    .andExpect(status().isOk());
+        }
+
+        // 超過 burst 之後回傳 429，格式與其他錯誤相同
+        mockMvc.perform(get("/users").header("X-Client-Id", "abusive"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "10"))
+                .andExpect(jsonPath("$.error").value("Too many requests"))
+                .andExpect(jsonPath("$.httpStatus").value("429 TOO_MANY_REQUESTS"))
+                .andExpect(jsonPath("$.message").value("Rate limit exceeded, retry later"))
+                .andExpect(jsonPath("$.timestamp").exists());
+
+        // 其他客戶端有自己的 bucket
+        mockMvc.perform(get("/users").header("X-Client-Id", "polite"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void testEndpointsOutsideUserControllerAreNotLimited() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            mockMvc.perform(get("/actuator/health").header("X-Client-Id", "monitor"))
+                    .andExpect(status().isOk());
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.kai.test_practice.integrationTest;
+
+import com.jayway.jsonpath.JsonPath;
+import com.kai.test_practice.cache.UserCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability // 測試預設不啟用 Prometheus registry，需要明確開啟
+@Sql(scripts = "/sql/test-data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "/sql/cleanup.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+public class MetricsIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private UserCache userCache;
+
+    @Test
+    public void testPrometheusScrapeContainsHotPathMetrics() throws Exception {
+        // 先打幾個請求，產生端點、repository 與例外的指標
+        mockMvc.perform(post("/users")
+                        .contentType("application/json")
+                        .content("{\"name\": \"Metrics User\", \"email\": \"metrics@example.com\"}"))
+                .andExpect(status().isCreated());
+        mockMvc.perform(get("/users/{id}", -1L))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(post("/users")
+                        .contentType("application/json")
+                        .content("{\"name\": \"A\", \"email\": \"metrics@example.com\"}"))
+                .andExpect(status().isBadRequest());
+
+        // 模擬 Prometheus 抓取
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(allOf(
+                        // 每個端點的延遲直方圖
+                        containsString("http_server_requests_seconds_bucket{"),
+                        containsString("uri=\"/users/{id}\""),
+                        // 每個 repository 方法的延遲
+                        containsString("spring_data_repository_invocations_seconds_bucket{"),
+                        containsString("method=\"saveAndFlush\""),
+                        // 新的 email 由 Bloom filter 判斷不存在，省略 existsByEmail
+                        containsString("users_email_filter_checks_total{result=\"absent\""),
+                        // 依例外類型的計數
+                        containsString("users_errors_total{exception=\"UserNotFoundException\""),
+                        containsString("users_errors_total{exception=\"MethodArgumentNotValidException\""))));
+    }
+
+    @Test
+    public void testCachedUserDoesNotCheckOutConnection() throws Exception {
+        // 第一次讀取放進快取
+        long id = firstUserId();
+        mockMvc.perform(get("/users/{id}", id))
+                .andExpect(status().isOk());
+
+        // 快取命中時不開始交易，也不會向連線池取得連線
+        double checkouts = meterRegistry.get("hikaricp.connections.usage").timer().count();
+        mockMvc.perform(get("/users/{id}", id))
+                .andExpect(status().isOk());
+        assertEquals(checkouts, meterRegistry.get("hikaricp.connections.usage").timer().count());
+    }
+
+    @Test
+    public void testSqlStatsEndpointListsRepositoryStatements() throws Exception {
+        long id = firstUserId();
+        userCache.evict(id); // 其他測試可能已經把這位使用者放進快取，確保這次會查詢資料庫
+        mockMvc.perform(delete("/actuator/sqlstats"))
+                .andExpect(status().isNoContent());
+        mockMvc.perform(get("/users/{id}", id))
+                .andExpect(status().isOk());
+
+        // 每個 SQL 敘述都有自己的次數與耗時統計
+        mockMvc.perform(get("/actuator/sqlstats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.statements[*].sql", hasItem(startsWith("select u1_0.id,u1_0.name,u1_0.email,u1_0.code,u1_0.version from users u1_0 where u1_0.id=?"))))
+                .andExpect(jsonPath("$.statements[0].count").isNumber())
+                .andExpect(jsonPath("$.statements[0].maxMillis").isNumber());
+    }
+
+    private long firstUserId() throws Exception {
+        String page = mockMvc.perform(get("/users").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        return JsonPath.<Number>read(page, "$[0].id").longValue();
+    }
+}
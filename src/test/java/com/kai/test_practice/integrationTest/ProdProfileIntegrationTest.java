@@ -0,0 +1,66 @@
+package com.kai.test_practice.integrationTest;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.hamcrest.Matchers.containsString;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:prod-profile", // 使用獨立的資料庫，確認資料表由 schema.sql 建立
+        "app.users.code.node-id=1", // prod 要求明確設定 node-id
+        "app.admission.rate-limit.client-header=X-Client-Id" // prod 要求明確設定區分客戶端的 header
+})
+@AutoConfigureMockMvc
+@AutoConfigureObservability // 測試預設不啟用 Prometheus registry，需要明確開啟
+@ActiveProfiles("prod") // 延遲初始化、只驗證資料表結構、關閉 Swagger 與 H2 console，並啟用 datasource-tuning
+@Sql(scripts = "/sql/cleanup.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+public class ProdProfileIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    public void testSchemaMatchesEntities() throws Exception {
+        // 能啟動代表 schema.sql 與實體一致（ddl-auto: validate），寫入與讀取也要能正常運作
+        mockMvc.perform(post("/users")
+                        .contentType("application/json")
+                        .content("{\"name\": \"Prod User\", \"email\": \"prod@example.com\"}"))
+                .andExpect(status().isCreated());
+        mockMvc.perform(get("/users/search").param("email", "PROD@example.com"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("Prod User"));
+    }
+
+    @Test
+    public void testConnectionPoolIsSizedAndObserved() throws Exception {
+        mockMvc.perform(get("/users")).andExpect(status().isOk());
+
+        // prod 會一併啟用 datasource-tuning：固定大小的連線池，並輸出連線數與取得連線的等待時間
+        int size = Runtime.getRuntime().availableProcessors() * 2 + 1;
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("hikaricp_connections_max{pool=\"users-pool\"} " + size + ".0")))
+                .andExpect(content().string(containsString("hikaricp_connections_active{pool=\"users-pool\"}")))
+                .andExpect(content().string(containsString("hikaricp_connections_idle{pool=\"users-pool\"}")))
+                .andExpect(content().string(containsString("hikaricp_connections_pending{pool=\"users-pool\"}")))
+                .andExpect(content().string(containsString("hikaricp_connections_acquire_seconds_bucket{pool=\"users-pool\"")));
+    }
+
+    @Test
+    public void testDevelopmentEndpointsAreDisabled() throws Exception {
+        mockMvc.perform(get("/v3/api-docs")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/swagger-ui/index.html")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/h2-console")).andExpect(status().isNotFound());
+    }
+}
@@ -0,0 +1,94 @@
+package com.kai.test_practice.integrationTest;
+
+import com.jayway.jsonpath.JsonPath;
+import com.kai.test_practice.datasource.ConnectionPoolSizer;
+import com.kai.test_practice.datasource.ReplicaPools;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(properties = {
+        "app.users.cache.enabled=false", // 關閉快取，讓每次讀取都實際取得資料庫連線
+        "app.datasource.pool.auto-size=true" // primary 與 replica 的連線池也要依 CPU 核心數調整大小
+})
+@AutoConfigureMockMvc
+@ActiveProfiles("read-replicas") // 兩個 H2 資料庫分別代表 primary 與 replica
+@Sql(scripts = "/sql/test-data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "/sql/cleanup.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+public class ReadReplicaRoutingIntegrationTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private ReplicaPools replicaPools;
+
+    @Autowired
+    private ConnectionPoolSizer connectionPoolSizer;
+
+    private double routes(String target) {
+        return meterRegistry.get("datasource.routes").tag("target", target).counter().count();
+    }
+
+    @Test
+    public void testReadOnlyRequestsUseReplica() throws Exception {
+        double replicaBefore = routes("replica-1");
+        double primaryBefore = routes("primary");
+
+        // 唯讀的查詢由 replica 處理，並能讀到寫入 primary 的資料
+        mockMvc.perform(get("/users"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+        mockMvc.perform(get("/users/search").param("namePrefix", "Jane"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("Jane Smith"));
+
+        assertTrue(routes("replica-1") > replicaBefore);
+        assertEquals(primaryBefore, routes("primary"));
+    }
+
+    @Test
+    public void testWritesAndReadYourWritesUsePrimary() throws Exception {
+        double primaryBefore = routes("primary");
+        String created = mockMvc.perform(post("/users")
+                        .contentType("application/json")
+                        .content("{\"name\": \"Fresh User\", \"email\": \"fresh@example.com\"}"))
+                .andExpect(status().isCreated())
+                .andReturn().getResponse().getContentAsString();
+        assertTrue(routes("primary") > primaryBefore);
+
+        // 剛建立的使用者從 primary 讀取，不會因為 replica 尚未追上而回傳 404
+        long id = ((Number) JsonPath.read(created, "$.id")).longValue();
+        double replicaBefore = routes("replica-1");
+        mockMvc.perform(get("/users/" + id))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Fresh User"));
+        assertEquals(replicaBefore, routes("replica-1"));
+    }
+
+    @Test
+    public void testReplicaPoolsAreSized() {
+        // 連線池由 ReplicaPools 管理，不是 DataSource bean，仍要套用 ConnectionPoolSizer 的大小
+        assertEquals(connectionPoolSizer.poolSize(), replicaPools.primary().getMaximumPoolSize());
+        for (HikariDataSource replica : replicaPools.replicas()) {
+            assertEquals(connectionPoolSizer.poolSize(), replica.getMaximumPoolSize());
+            assertEquals(connectionPoolSizer.poolSize(), replica.getMinimumIdle());
+        }
+    }
+}
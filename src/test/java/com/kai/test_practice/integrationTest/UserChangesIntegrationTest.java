@@ -0,0 +1,143 @@
+package com.kai.test_practice.integrationTest;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// 只保留最近 2 筆事件，讓較舊的 Last-Event-ID 必須從資料庫補送；心跳間隔縮短，客戶端斷線後很快就會釋出訂閱
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "app.users.changes.replay-size=2",
+        "app.users.changes.heartbeat=200ms"
+})
+@Sql(scripts = "/sql/test-data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "/sql/cleanup.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+public class UserChangesIntegrationTest {
+
+    @LocalServerPort
+    private int port;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @Test
+    public void testCreatedUserIsPushedToSubscriber() throws Exception {
+        try (BufferedReader reader = subscribe(null)) {
+            long id = createUser("live@example.com");
+
+            List<String> events = readEvents(reader, 1);
+            assertEquals(id, (long) JsonPath.<Integer>read(events.get(0), "$.id"));
+            assertEquals("live@example.com", JsonPath.read(events.get(0), "$.email"));
+        }
+    }
+
+    @Test
+    public void testSubscribeSendsRetryImmediately() throws Exception {
+        // 不等心跳，訂閱後立即收到重連間隔
+        try (BufferedReader reader = subscribe(null)) {
+            String first = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return reader.readLine();
+                } catch (IOException e) {
+                    throw new IllegalStateException(e);
+                }
+            }).get(10, TimeUnit.SECONDS);
+            assertEquals("retry:3000", first);
+        }
+    }
+
+    @Test
+    public void testResumeFromReplayBuffer() throws Exception {
+        long first = createUser("first@example.com");
+        createUser("second@example.com");
+
+        // first 仍在保留的 2 筆之中，只會收到 second
+        try (BufferedReader reader = subscribe(first)) {
+            List<String> events = readEvents(reader, 1);
+            assertEquals("second@example.com", JsonPath.read(events.get(0), "$.email"));
+
+            // 補送之後繼續接收新事件
+            createUser("third@example.com");
+            assertEquals("third@example.com", JsonPath.read(readEvents(reader, 1).get(0), "$.email"));
+        }
+    }
+
+    @Test
+    public void testResumeFromDatabaseWhenOutsideReplayBuffer() throws Exception {
+        for (String email : List.of("a@example.com", "b@example.com", "c@example.com")) {
+            createUser(email);
+        }
+
+        // id 0 早已不在保留的事件中，從資料庫依 id 補送全部 5 位使用者（含 test-data.sql 的 2 位）
+        try (BufferedReader reader = subscribe(0L)) {
+            List<String> emails = readEvents(reader, 5).stream()
+                    .map(event -> JsonPath.<String>read(event, "$.email"))
+                    .toList();
+            assertTrue(emails.containsAll(List.of("john.doe@example.com", "jane.smith@example.com",
+                    "a@example.com", "b@example.com", "c@example.com")), emails.toString());
+        }
+    }
+
+    private BufferedReader subscribe(Long lastEventId) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/users/changes"))
+                .header("Accept", "text/event-stream");
+        if (lastEventId != null) {
+            request.header("Last-Event-ID", String.valueOf(lastEventId));
+        }
+        HttpResponse<InputStream> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+        assertEquals(200, response.statusCode());
+        return new BufferedReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8));
+    }
+
+    private long createUser(String email) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/users"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString("{\"name\": \"Change User\", \"email\": \"" + email + "\"}"))
+                .build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        assertEquals(201, response.statusCode());
+        return JsonPath.<Integer>read(response.body(), "$.id");
+    }
+
+    // 讀取接下來的 count 個 user-created 事件的 data，略過心跳註解
+    private List<String> readEvents(BufferedReader reader, int count) throws Exception {
+        return CompletableFuture.supplyAsync(() -> {
+            List<String> events = new ArrayList<>();
+            try {
+                String event = null;
+                while (events.size() < count) {
+                    String line = reader.readLine();
+                    if (line == null) {
+                        throw new IllegalStateException("Stream closed after " + events);
+                    }
+                    if (line.startsWith("event:")) {
+                        event = line.substring("event:".length());
+                    } else if (line.startsWith("data:") && "user-created".equals(event)) {
+                        events.add(line.substring("data:".length()));
+                        event = null;
+                    }
+                }
+                return events;
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }).get(10, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,53 @@
+package com.kai.test_practice.integrationTest;
+
+import com.kai.test_practice.entities.CreateUserRequest;
+import com.kai.test_practice.entities.User;
+import com.kai.test_practice.generators.UserCodeGenerator;
+import com.kai.test_practice.services.UserService;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.context.jdbc.Sql;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// 使用者代碼與既有資料重複時不應被當成 email 重複
+@SpringBootTest
+@Sql(scripts = "/sql/test-data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "/sql/cleanup.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+public class UserCodeCollisionIntegrationTest {
+
+    // test-data.sql 中 John Doe 的代碼
+    private static final String EXISTING_CODE = "johb_cde";
+
+    @Autowired
+    private UserService userService;
+
+    @MockitoBean
+    private UserCodeGenerator userCodeGenerator;
+
+    @Test
+    public void testCodeCollisionIsRetriedWithNewCode() {
+        Mockito.when(userCodeGenerator.nextCode()).thenReturn(EXISTING_CODE, "fresh_code");
+
+        User user = userService.createUser(request("collision@example.com"));
+
+        assertEquals("fresh_code", user.getCode());
+    }
+
+    @Test
+    public void testPersistentCodeCollisionIsServerError() {
+        Mockito.when(userCodeGenerator.nextCode()).thenReturn(EXISTING_CODE);
+
+        // 重試用盡後以 IllegalStateException 回傳 500，而不是 email 已存在的 400
+        assertThrows(IllegalStateException.class, () -> userService.createUser(request("collision@example.com")));
+        Mockito.verify(userCodeGenerator, Mockito.times(3)).nextCode();
+    }
+
+    private CreateUserRequest request(String email) {
+        return new CreateUserRequest("Collision User", email);
+    }
+}
@@ -1,5 +1,6 @@
 package com.kai.test_practice.integrationTest;
 
+import com.jayway.jsonpath.JsonPath;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
@@ -8,15 +9,24 @@ import org.junit.jupiter.params.provider.MethodSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.util.stream.Stream;
 
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest // 標註為 Spring Boot 測試類，啟動完整的 Spring 應用上下文進行測試，適用於整合測試。
@@ -44,6 +54,315 @@ public class UserControllerIntegrationTest {
                 .andExpect(jsonPath("$[*].email").value(org.hamcrest.Matchers.hasItem("test@example.com"))); // 驗證返回的 JSON 包含指定的 email。
     }
 
+    @Test
+    public void testGetUsersWithKeysetPagination() throws Exception {
+        // 第一頁只取一筆，因為該頁已滿，回應需帶有下一頁的 Link header
+        MvcResult firstPage = mockMvc.perform(get("/users").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].name").value("John Doe"))
+                .andExpect(header().string(HttpHeaders.LINK, org.hamcrest.Matchers.containsString("rel=\"next\"")))
+                .andReturn();
+
+        // 以第一頁最後一筆的 id 作為游標取得下一頁
+        long lastId = ((Number) JsonPath.read(firstPage.getResponse().getContentAsString(), "$[0].id")).longValue();
+        mockMvc.perform(get("/users").param("after", String.valueOf(lastId)).param("limit", "10"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].name").value("Jane Smith"))
+                .andExpect(header().doesNotExist(HttpHeaders.LINK));
+    }
+
+    @Test
+    public void testGetUsersWithInvalidLimit() throws Exception {
+        mockMvc.perform(get("/users").param("limit", "0"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error").value("Bad request"));
+    }
+
+    @Test
+    public void testGetUserByIdWithETag() throws Exception {
+        MvcResult page = mockMvc.perform(get("/users").param("limit", "1")).andReturn();
+        long id = ((Number) JsonPath.read(page.getResponse().getContentAsString(), "$[0].id")).longValue();
+
+        // 第一次請求取得 ETag，帶著相同的 ETag 再次請求應回傳 304 且沒有內容
+        String eTag = mockMvc.perform(get("/users/" + id))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/users/" + id).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(content().string(""));
+
+        // ETag 不相符時回傳完整內容
+        mockMvc.perform(get("/users/" + id).header(HttpHeaders.IF_NONE_MATCH, "\"stale\""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("John Doe"))
+                .andExpect(jsonPath("$.version").doesNotExist());
+    }
+
+    @Test
+    public void testGetUsersWithETag() throws Exception {
+        String eTag = mockMvc.perform(get("/users"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        // 資料沒有變動時回傳 304
+        mockMvc.perform(get("/users").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+
+        // 新增使用者後該頁的聚合版本改變，舊的 ETag 不再相符
+        mockMvc.perform(post("/users")
+                        .contentType("application/json")
+                        .content("{\"name\": \"New User\", \"email\": \"new@example.com\"}"))
+                .andExpect(status().isCreated());
+        mockMvc.perform(get("/users").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, org.hamcrest.Matchers.not(eTag)))
+                .andExpect(jsonPath("$.length()").value(3));
+    }
+
+    @Test
+    public void testCreateUserAsync() throws Exception {
+        // 請求被接受後立即回傳 202 與查詢結果的網址
+        MvcResult accepted = mockMvc.perform(post("/users/async")
+                        .contentType("application/json")
+                        .content("{\"name\": \"Async User\", \"email\": \"async@example.com\"}"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().exists(HttpHeaders.LOCATION))
+                .andExpect(jsonPath("$.status").value("PENDING"))
+                .andReturn();
+        String location = accepted.getResponse().getHeader(HttpHeaders.LOCATION);
+
+        // 寫入前再次送出相同的 email 會被拒絕
+        mockMvc.perform(post("/users/async")
+                        .contentType("application/json")
+                        .content("{\"name\": \"Async User\", \"email\": \"async@example.com\"}"))
+                .andExpect(status().isBadRequest());
+
+        // 輪詢直到背景執行緒寫入完成
+        String status = "PENDING";
+        for (int i = 0; i < 50 && status.equals("PENDING"); i++) {
+            Thread.sleep(100);
+            status = JsonPath.read(mockMvc.perform(get(location)).andReturn().getResponse().getContentAsString(), "$.status");
+        }
+        assertEquals("CREATED", status);
+        mockMvc.perform(get("/users/search").param("email", "async@example.com"))
+                .andExpect(jsonPath("$[0].name").value("Async User"));
+
+        mockMvc.perform(get("/users/async/unknown"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void testSearchUsersByEmailIgnoresCase() throws Exception {
+        mockMvc.perform(get("/users/search").param("email", "John.Doe@Example.com"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].email").value("john.doe@example.com"))
+                .andExpect(jsonPath("$[0].normalizedEmail").doesNotExist());
+    }
+
+    @Test
+    public void testSearchUsersByPrefix() throws Exception {
+        mockMvc.perform(get("/users/search").param("emailPrefix", "JANE"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].name").value("Jane Smith"));
+
+        mockMvc.perform(get("/users/search").param("namePrefix", "J"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+
+        // 前綴中的 % 只當作一般字元
+        mockMvc.perform(get("/users/search").param("namePrefix", "%"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(0));
+    }
+
+    @Test
+    public void testSearchUsersByExactName() throws Exception {
+        mockMvc.perform(get("/users/search").param("name", "John Doe"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].email").value("john.doe@example.com"));
+    }
+
+    @Test
+    public void testSearchUsersWithoutCriteria() throws Exception {
+        mockMvc.perform(get("/users/search"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("At least one of email, emailPrefix, name or namePrefix is required"));
+    }
+
+    @Test
+    public void testStreamUsersAsNdjson() throws Exception {
+        // 串流回應是非同步寫出的，需要先等待 async 開始再 dispatch 取得結果
+        MvcResult asyncResult = mockMvc.perform(get("/users").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(asyncResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        org.junit.jupiter.api.Assertions.assertEquals(2, lines.length);
+        org.junit.jupiter.api.Assertions.assertEquals("John Doe", JsonPath.read(lines[0], "$.name"));
+        org.junit.jupiter.api.Assertions.assertEquals("Jane Smith", JsonPath.read(lines[1], "$.name"));
+    }
+
+    @Test
+    public void testExportUsersAsCsv() throws Exception {
+        // 名稱包含逗號與引號時需加上雙引號
+        mockMvc.perform(post("/users")
+                        .contentType("application/json")
+                        .content("{\"name\": \"Doe, \\\"JD\\\" John\", \"email\": \"csv@example.com\"}"))
+                .andExpect(status().isCreated());
+
+        String body = mockMvc.perform(get("/users/export").param("format", "csv"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv;charset=UTF-8"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"users.csv\""))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\r\n");
+        assertEquals(4, lines.length);
+        assertEquals("id,name,email,code", lines[0]);
+        // 新建立的使用者 id 由序列配置，不一定排在測試資料之後
+        org.junit.jupiter.api.Assertions.assertTrue(body.contains(",John Doe,john.doe@example.com,johb_cde\r\n"));
+        org.junit.jupiter.api.Assertions.assertTrue(body.contains(",\"Doe, \"\"JD\"\" John\",csv@example.com,"));
+    }
+
+    @Test
+    public void testExportUsersAsCsvEscapesFormulas() throws Exception {
+        // 以公式字元開頭的欄位在試算表中不能被執行
+        for (String name : new String[]{"=HYPERLINK(\\\"http://evil.example\\\")", "+1+2", "-2+3", "@SUM(A1)"}) {
+            mockMvc.perform(post("/users")
+                            .contentType("application/json")
+                            .content("{\"name\": \"" + name + "\", \"email\": \"" + name.hashCode() + "@example.com\"}"))
+                    .andExpect(status().isCreated());
+        }
+
+        String body = mockMvc.perform(get("/users/export").param("format", "csv"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        org.junit.jupiter.api.Assertions.assertTrue(body.contains(",\"'=HYPERLINK(\"\"http://evil.example\"\")\","), body);
+        org.junit.jupiter.api.Assertions.assertTrue(body.contains(",'+1+2,"), body);
+        org.junit.jupiter.api.Assertions.assertTrue(body.contains(",'-2+3,"), body);
+        org.junit.jupiter.api.Assertions.assertTrue(body.contains(",'@SUM(A1),"), body);
+        // 一般的值不受影響
+        org.junit.jupiter.api.Assertions.assertTrue(body.contains(",John Doe,john.doe@example.com,johb_cde\r\n"));
+    }
+
+    @Test
+    public void testExportUsersAsGzippedNdjson() throws Exception {
+        MvcResult result = mockMvc.perform(get("/users/export").param("format", "ndjson").param("gzip", "true"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andReturn();
+
+        byte[] compressed = result.getResponse().getContentAsByteArray();
+        String body;
+        try (java.util.zip.GZIPInputStream input = new java.util.zip.GZIPInputStream(new java.io.ByteArrayInputStream(compressed))) {
+            body = new String(input.readAllBytes(), java.nio.charset.StandardCharsets.UTF_8);
+        }
+        String[] lines = body.split("\n");
+        assertEquals(2, lines.length);
+        assertEquals("John Doe", JsonPath.read(lines[0], "$.name"));
+        assertEquals("jane_code", JsonPath.read(lines[1], "$.code"));
+    }
+
+    @Test
+    public void testExportUsersWithUnknownFormat() throws Exception {
+        mockMvc.perform(get("/users/export").param("format", "xml"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Unknown export format: xml"));
+    }
+
+    @Test
+    public void testBulkCreateUsersWithJsonArray() throws Exception {
+        // 一筆有效、一筆驗證失敗、一筆與既有資料重複、一筆與同一請求中的項目重複
+        String request = "["
+                + "{\"name\": \"Bulk One\", \"email\": \"bulk1@example.com\"},"
+                + "{\"name\": \"A\", \"email\": \"bulk2@example.com\"},"
+                + "{\"name\": \"Bulk Three\", \"email\": \"john.doe@example.com\"},"
+                + "{\"name\": \"Bulk Four\", \"email\": \"bulk1@example.com\"}"
+                + "]";
+
+        mockMvc.perform(post("/users/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(request))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1))
+                .andExpect(jsonPath("$.failed").value(3))
+                .andExpect(jsonPath("$.results[0].status").value("CREATED"))
+                .andExpect(jsonPath("$.results[0].id").isNumber())
+                .andExpect(jsonPath("$.results[1].status").value("FAILED"))
+                .andExpect(jsonPath("$.results[1].error").value("Name should be between 3 and 50 characters"))
+                .andExpect(jsonPath("$.results[2].error").value("Email already exists: john.doe@example.com"))
+                .andExpect(jsonPath("$.results[3].index").value(3))
+                .andExpect(jsonPath("$.results[3].error").value("Email already exists: bulk1@example.com"));
+    }
+
+    @Test
+    public void testBulkCreateUsersWithNdjson() throws Exception {
+        StringBuilder request = new StringBuilder();
+        for (int i = 0; i < 1200; i++) { // 超過一個批次的大小，確認跨批次的結果順序正確
+            request.append("{\"name\": \"Ndjson User\", \"email\": \"ndjson").append(i).append("@example.com\"}\n");
+        }
+
+        mockMvc.perform(post("/users/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(request.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(1200))
+                .andExpect(jsonPath("$.failed").value(0))
+                .andExpect(jsonPath("$.results[1199].index").value(1199))
+                .andExpect(jsonPath("$.results[1199].email").value("ndjson1199@example.com"));
+    }
+
+    @Test
+    public void testBulkCreateUsersWithMalformedBody() throws Exception {
+        mockMvc.perform(post("/users/bulk")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"name\": \"Broken\""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(0))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.results[0].status").value("FAILED"))
+                .andExpect(jsonPath("$.results[0].error").value(startsWith("Malformed bulk request: ")));
+    }
+
+    @Test
+    public void testBulkCreateUsersWithMalformedLaterItem() throws Exception {
+        StringBuilder request = new StringBuilder();
+        for (int i = 0; i < 600; i++) { // 第一個批次已提交後才遇到格式錯誤的項目
+            request.append("{\"name\": \"Partial User\", \"email\": \"partial").append(i).append("@example.com\"}\n");
+        }
+        request.append("{\"name\": \"Broken\"\n");
+        request.append("{\"name\": \"Never Read\", \"email\": \"never@example.com\"}\n");
+
+        // 格式錯誤之前的項目都已建立，錯誤的項目記為 FAILED，之後的項目不再讀取
+        mockMvc.perform(post("/users/bulk")
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content(request.toString()))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.created").value(600))
+                .andExpect(jsonPath("$.failed").value(1))
+                .andExpect(jsonPath("$.results.length()").value(601))
+                .andExpect(jsonPath("$.results[599].status").value("CREATED"))
+                .andExpect(jsonPath("$.results[600].index").value(600))
+                .andExpect(jsonPath("$.results[600].status").value("FAILED"))
+                .andExpect(jsonPath("$.results[600].error").value(startsWith("Malformed bulk request: ")));
+    }
+
     @ParameterizedTest // 標註這是一個參數化測試方法，允許使用多組測試數據重複執行測試。
     @MethodSource("provideCreateUserData") // 指定測試數據來自名為 "provideCreateUserData" 的靜態方法。
     public void testCreateUserWithMethodSource(String name, String email, String errorType) throws Exception {
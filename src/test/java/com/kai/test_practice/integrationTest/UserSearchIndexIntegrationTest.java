@@ -0,0 +1,49 @@
+package com.kai.test_practice.integrationTest;
+
+import com.kai.test_practice.entities.UserSearchRequest;
+import com.kai.test_practice.jdbc.QueryPlans;
+import com.kai.test_practice.services.UserService;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import javax.sql.DataSource;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest // 使用 Hibernate 依 User 實體產生的資料表與索引
+public class UserSearchIndexIntegrationTest {
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @ParameterizedTest // 每一種搜尋條件產生的 SQL 都要走對應的索引，而不是全表掃描或沿著主鍵逐筆檢查
+    @CsvSource(delimiter = '|', value = {
+            "email       | John.Doe@Example.com | IDX_USERS_NORMALIZED_EMAIL | false",
+            "emailPrefix | John                 | IDX_USERS_NORMALIZED_EMAIL | true",
+            "name        | John Doe             | IDX_USERS_NAME             | false",
+            "namePrefix  | Jo                   | IDX_USERS_NAME             | true"
+    })
+    public void testSearchQueriesUseIndexes(String criterion, String value, String index, boolean indexSorted) {
+        UserSearchRequest request = new UserSearchRequest();
+        switch (criterion) {
+            case "email" -> request.setEmail(value);
+            case "emailPrefix" -> request.setEmailPrefix(value);
+            case "name" -> request.setName(value);
+            case "namePrefix" -> request.setNamePrefix(value);
+            default -> throw new IllegalArgumentException(criterion);
+        }
+
+        String plan = QueryPlans.explain(dataSource, () -> userService.searchUsers(request));
+
+        assertTrue(plan.contains(index), () -> "Expected " + index + " but got: " + plan);
+        // 前綴查詢必須沿著索引的順序讀取，取滿筆數就能停止
+        if (indexSorted) {
+            assertTrue(plan.contains("index sorted"), () -> "Expected rows to be read in index order but got: " + plan);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package com.kai.test_practice.integrationTest;
+
+import com.kai.test_practice.entities.CreateUserRequest;
+import com.kai.test_practice.repositories.UserRepository;
+import com.kai.test_practice.services.UserService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// 使用真實的 UserService 與 H2 資料庫，驗證同時建立使用者時的行為；關閉 email 預先過濾，每次建立都會呼叫 existsByEmail
+@SpringBootTest(properties = "app.users.email-filter.enabled=false")
+@Sql(scripts = "/sql/cleanup.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD) // 每個測試之後清除資料
+public class UserServiceConcurrencyTest {
+
+    @Autowired
+    private UserService userService;
+
+    @MockitoSpyBean // 保留真實的 repository 行為，只在需要時插入額外的等待
+    private UserRepository userRepository;
+
+    @Test
+    public void testCreateUserRunsInParallel() throws Exception {
+        // 兩個執行緒必須同時停在 existsByEmail 才能通過 barrier，如果 createUser 仍然有全域鎖就會逾時
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        Mockito.doAnswer(invocation -> {
+            barrier.await(5, TimeUnit.SECONDS);
+            return false; // 兩個 email 都是新的
+        }).when(userRepository).existsByEmail(Mockito.anyString());
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> first = executor.submit(() -> userService.createUser(new CreateUserRequest("First User", "first@example.com")));
+            Future<?> second = executor.submit(() -> userService.createUser(new CreateUserRequest("Second User", "second@example.com")));
+            first.get(10, TimeUnit.SECONDS);
+            second.get(10, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(2, userRepository.count());
+    }
+
+    @Test
+    public void testConcurrentDuplicateEmailCreatesOnlyOneUser() throws Exception {
+        int threads = 8;
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger duplicates = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < threads; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        userService.createUser(new CreateUserRequest("Same User", "same@example.com"));
+                    } catch (IllegalArgumentException e) {
+                        assertEquals("Email already exists: same@example.com", e.getMessage());
+                        duplicates.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown(); // 讓所有執行緒同時開始
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        // 無論有多少請求同時通過 existsByEmail 的檢查，唯一索引只會讓其中一筆寫入成功
+        assertEquals(threads - 1, duplicates.get());
+        assertEquals(1, userRepository.count());
+    }
+
+    // 吞吐量與機器的核心數有關，列為負載測試：mvn test -Pload-test -Dtest=UserServiceConcurrencyTest
+    // 多執行緒的吞吐量至少要是單執行緒的 min-ratio 倍，預設 0.8 只擋下加鎖造成的退化，多核心機器可提高，例如 -Dcreate.scaling.min-ratio=1.5
+    @Test
+    @Tag("load")
+    public void testCreateUserThroughputWithIncreasingThreads() throws Exception {
+        int usersPerRun = 400;
+        double minRatio = Double.parseDouble(System.getProperty("create.scaling.min-ratio", "0.8"));
+        Map<Integer, Double> throughputs = new LinkedHashMap<>();
+        for (int threads : new int[]{1, 2, 4, 8}) {
+            long elapsed = createUsersConcurrently("t" + threads, threads, usersPerRun);
+            double throughput = usersPerRun * 1_000_000_000.0 / elapsed;
+            throughputs.put(threads, throughput);
+            System.out.printf("createUser with %d thread(s): %.0f users/s%n", threads, throughput);
+        }
+
+        // 每一輪使用不同的 email，全部都應該成功寫入
+        assertEquals(4L * usersPerRun, userRepository.count());
+        double ratio = throughputs.get(8) / throughputs.get(1);
+        assertTrue(ratio >= minRatio, String.format("8 threads reached %.2fx the single-thread throughput, expected at least %.2fx",
+                ratio, minRatio));
+    }
+
+    // 以指定的執行緒數建立使用者，回傳花費的奈秒數
+    private long createUsersConcurrently(String prefix, int threads, int users) throws InterruptedException, ExecutionException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        long startTime = System.nanoTime();
+        try {
+            for (int i = 0; i < users; i++) {
+                String email = prefix + "-" + i + "@example.com";
+                futures.add(executor.submit(() -> userService.createUser(new CreateUserRequest("Load User", email))));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        long elapsed = System.nanoTime() - startTime;
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        return elapsed;
+    }
+}
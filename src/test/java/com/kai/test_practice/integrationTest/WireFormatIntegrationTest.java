@@ -0,0 +1,168 @@
+package com.kai.test_practice.integrationTest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.github.luben.zstd.ZstdInputStream;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// 經過真正的 Tomcat 與 filter 鏈，驗證實際送出的 Content-Type、Content-Encoding 與位元組
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Sql(scripts = "/sql/test-data.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "/sql/cleanup.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+public class WireFormatIntegrationTest {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+    private static final ObjectMapper CBOR = new ObjectMapper(new CBORFactory());
+    private static final ObjectMapper SMILE = new ObjectMapper(new SmileFactory());
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final HttpClient httpClient = HttpClient.newHttpClient();
+
+    @BeforeEach
+    public void seedUsers() {
+        // 另外建立 200 位使用者，讓一頁的回應超過 2KB 的壓縮門檻
+        jdbcTemplate.update("INSERT INTO users (id, name, email, normalized_email, code, version) "
+                + "SELECT NEXT VALUE FOR users_seq, 'Wire User ' || X, 'wire' || X || '@example.com', 'wire' || X || '@example.com', 'WIRE-' || X, 0 "
+                + "FROM SYSTEM_RANGE(1, 200)");
+    }
+
+    @Test
+    public void testJsonIsDefault() throws Exception {
+        HttpResponse<byte[]> response = get("/users?limit=1", null, null);
+        assertEquals("application/json", response.headers().firstValue("Content-Type").orElseThrow());
+        assertEquals("John Doe", JSON.readTree(response.body()).get(0).get("name").asText());
+    }
+
+    @Test
+    public void testCborAndSmileByAcceptHeader() throws Exception {
+        HttpResponse<byte[]> cbor = get("/users?limit=1000", "application/cbor", null);
+        assertEquals("application/cbor", cbor.headers().firstValue("Content-Type").orElseThrow());
+        JsonNode cborUsers = CBOR.readTree(cbor.body());
+        assertEquals(202, cborUsers.size());
+
+        HttpResponse<byte[]> smile = get("/users?limit=1000", "application/x-jackson-smile", null);
+        assertEquals("application/x-jackson-smile", smile.headers().firstValue("Content-Type").orElseThrow());
+        assertEquals(cborUsers, SMILE.readTree(smile.body()));
+
+        // 兩種二進位格式都比 JSON 小
+        byte[] json = get("/users?limit=1000", "application/json", null).body();
+        assertEquals(JSON.readTree(json), cborUsers);
+        assertTrue(cbor.body().length < json.length, cbor.body().length + " >= " + json.length);
+        assertTrue(smile.body().length < json.length, smile.body().length + " >= " + json.length);
+    }
+
+    @Test
+    public void testBinaryFormatsHonorFieldsAndSingleUser() throws Exception {
+        JsonNode page = CBOR.readTree(get("/users?limit=1&fields=id,name", "application/cbor", null).body());
+        assertEquals(2, page.get(0).size());
+        assertEquals("John Doe", page.get(0).get("name").asText());
+
+        long id = JSON.readTree(get("/users?limit=1", null, null).body()).get(0).get("id").asLong();
+        JsonNode user = SMILE.readTree(get("/users/" + id, "application/x-jackson-smile", null).body());
+        assertEquals("john.doe@example.com", user.get("email").asText());
+        assertFalse(user.has("version"));
+    }
+
+    @Test
+    public void testCreateUserWithCborBody() throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(uri("/users"))
+                .header("Content-Type", "application/cbor")
+                .header("Accept", "application/cbor")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(
+                        CBOR.writeValueAsBytes(JSON.readTree("{\"name\": \"Cbor User\", \"email\": \"cbor@example.com\"}"))))
+                .build();
+        HttpResponse<byte[]> response = httpClient.send(request, HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(201, response.statusCode());
+        assertEquals("cbor@example.com", CBOR.readTree(response.body()).get("email").asText());
+    }
+
+    @Test
+    public void testLargeResponsesAreCompressed() throws Exception {
+        byte[] plain = get("/users?limit=1000", null, null).body();
+
+        // gzip 由 Tomcat 的 server.compression 處理
+        HttpResponse<byte[]> gzip = get("/users?limit=1000", null, "gzip");
+        assertEquals("gzip", gzip.headers().firstValue("Content-Encoding").orElseThrow());
+        assertEquals(JSON.readTree(plain), JSON.readTree(decode(new GZIPInputStream(new ByteArrayInputStream(gzip.body())))));
+
+        // 同時接受兩者時使用 zstd
+        HttpResponse<byte[]> zstd = get("/users?limit=1000", "application/cbor", "zstd, gzip");
+        assertEquals("zstd", zstd.headers().firstValue("Content-Encoding").orElseThrow());
+        assertTrue(zstd.headers().allValues("Vary").stream().anyMatch(vary -> vary.contains("Accept-Encoding")));
+        assertEquals(JSON.readTree(plain), CBOR.readTree(decode(new ZstdInputStream(new ByteArrayInputStream(zstd.body())))));
+        assertTrue(zstd.body().length < plain.length / 3, zstd.body().length + " vs " + plain.length);
+    }
+
+    @Test
+    public void testSmallResponsesAreNotCompressed() throws Exception {
+        // 小於門檻的回應不以 zstd 壓縮，並帶上 Content-Length，Tomcat 也因此不會改用 gzip
+        HttpResponse<byte[]> response = get("/users?limit=1", null, "zstd, gzip");
+        assertTrue(response.headers().firstValue("Content-Encoding").isEmpty());
+        assertEquals(String.valueOf(response.body().length), response.headers().firstValue("Content-Length").orElseThrow());
+        assertEquals("John Doe", JSON.readTree(response.body()).get(0).get("name").asText());
+
+        // 只接受 gzip 時也使用相同的門檻，單一使用者與空白的一頁都不壓縮
+        long id = JSON.readTree(response.body()).get(0).get("id").asLong();
+        HttpResponse<byte[]> user = get("/users/" + id, null, "gzip");
+        assertTrue(user.headers().firstValue("Content-Encoding").isEmpty());
+        assertEquals(String.valueOf(user.body().length), user.headers().firstValue("Content-Length").orElseThrow());
+        assertEquals("John Doe", JSON.readTree(user.body()).get("name").asText());
+        HttpResponse<byte[]> empty = get("/users?after=1000000", null, "gzip");
+        assertTrue(empty.headers().firstValue("Content-Encoding").isEmpty());
+        assertEquals("[]", new String(empty.body()));
+
+        // 串流端點不經過緩衝，照常輸出
+        HttpResponse<byte[]> stream = get("/users", "application/x-ndjson", "zstd");
+        assertTrue(stream.headers().firstValue("Content-Encoding").isEmpty());
+        assertEquals(202, new String(stream.body()).lines().count());
+    }
+
+    private HttpResponse<byte[]> get(String path, String accept, String acceptEncoding) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri(path));
+        if (accept != null) {
+            request.header("Accept", accept);
+        }
+        if (acceptEncoding != null) {
+            request.header("Accept-Encoding", acceptEncoding);
+        }
+        HttpResponse<byte[]> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        assertEquals(200, response.statusCode());
+        return response;
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static byte[] decode(InputStream compressed) throws IOException {
+        try (compressed) {
+            return compressed.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.kai.test_practice.jdbc;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.ChainListener;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// 擷取 action 執行時 Hibernate 實際送出的 SELECT 與參數，再以相同參數 EXPLAIN，確認計畫針對的是真正的 SQL
+// 需要 app.sql.monitoring 以 datasource-proxy 包裝 DataSource（預設開啟）；整合測試與 JMH benchmark 共用，因此放在對應 jdbc 套件的位置
+public final class QueryPlans {
+
+    private QueryPlans() {
+    }
+
+    public static String explain(DataSource dataSource, Runnable action) {
+        ChainListener listeners = ((ProxyDataSource) dataSource).getProxyConfig().getQueryListener();
+        List<QueryInfo> selects = new CopyOnWriteArrayList<>();
+        QueryExecutionListener capture = new QueryExecutionListener() {
+            @Override
+            public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            }
+
+            @Override
+            public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+                queryInfoList.stream()
+                        .filter(query -> query.getQuery().regionMatches(true, 0, "select", 0, "select".length()))
+                        .forEach(selects::add);
+            }
+        };
+        listeners.addListener(capture);
+        try {
+            action.run();
+        } finally {
+            listeners.getListeners().remove(capture);
+        }
+        if (selects.size() != 1) {
+            throw new IllegalStateException("Expected exactly one SELECT but got: "
+                    + selects.stream().map(QueryInfo::getQuery).toList());
+        }
+
+        QueryInfo select = selects.get(0);
+        // setXxx(index, value) 依參數位置排序後依序綁定
+        Object[] args = select.getParametersList().isEmpty() ? new Object[0] : select.getParametersList().get(0).stream()
+                .map(ParameterSetOperation::getArgs)
+                .sorted(Comparator.comparingInt(setArgs -> (Integer) setArgs[0]))
+                .map(setArgs -> setArgs[1])
+                .toArray();
+        return new JdbcTemplate(dataSource).queryForObject("EXPLAIN " + select.getQuery(), String.class, args);
+    }
+}
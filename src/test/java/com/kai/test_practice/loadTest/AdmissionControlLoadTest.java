@@ -0,0 +1,190 @@
+package com.kai.test_practice.loadTest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kai.test_practice.TestPracticeApplication;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Tag("load") // 負載測試，預設不執行：mvn test -Pload-test
+public class AdmissionControlLoadTest {
+
+    private static final int POLITE_CLIENTS = 4;
+    private static final long POLITE_PAUSE_MILLIS = 50; // 每個正常客戶端約每秒 20 個請求
+    private static final int ABUSIVE_THREADS = 16; // 同一個客戶端以 16 條連線送出請求
+    // 每條連線每 20 ms 送出一個請求，總共約每秒 800 個，遠超過限流；
+    // 固定送出的速率，被拒絕時不會更快地重送，兩次比較時測試端（與應用程式共用 CPU）的負擔相同
+    private static final long ABUSIVE_INTERVAL_MILLIS = 20;
+    private static final long DURATION_MILLIS = 5000;
+    private static final int RATE_LIMIT = 50; // 每個客戶端每秒的請求數，burst 也是 50
+    private static final int WARM_UP_REQUESTS = 2000;
+    private static final int SEED_USERS = 2000; // 讓濫用的客戶端每次讀取整頁 1000 筆
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void testPoliteClientsKeepTheirP99WhileAbusiveClientIsThrottled() throws Exception {
+        Result baseline = runLoad(true, false);
+        Result protectedRun = runLoad(true, true);
+        Result unprotectedRun = runLoad(false, true);
+
+        print("no abusive client", baseline);
+        print("abusive client, admission control on", protectedRun);
+        print("abusive client, admission control off", unprotectedRun);
+
+        // 正常客戶端不會被限流；濫用的客戶端被接受的請求不超過 burst 加上每秒的配額
+        assertEquals(0, baseline.politeRejected());
+        assertEquals(0, protectedRun.politeRejected());
+        assertTrue(protectedRun.abusiveRejected() > 0);
+        assertTrue(protectedRun.abusiveAccepted() <= (RATE_LIMIT * DURATION_MILLIS / 1000 + RATE_LIMIT) * 1.1,
+                "abusive client accepted " + protectedRun.abusiveAccepted());
+    }
+
+    private record Result(List<Long> politeLatencies, int politeRejected, int abusiveAccepted, int abusiveRejected) {
+    }
+
+    private Result runLoad(boolean admissionEnabled, boolean withAbusiveClient) throws Exception {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(TestPracticeApplication.class)
+                // 以命令列參數傳入，才能覆蓋 application.yaml 中的設定
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:admission-" + admissionEnabled + "-" + withAbusiveClient,
+                        "--app.admission.enabled=" + admissionEnabled,
+                        "--app.admission.rate-limit.requests-per-second=" + RATE_LIMIT,
+                        "--app.admission.rate-limit.burst=" + RATE_LIMIT,
+                        "--app.admission.rate-limit.client-header=X-Client-Id");
+        ExecutorService clients = Executors.newFixedThreadPool(POLITE_CLIENTS + ABUSIVE_THREADS);
+        try {
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            // 兩種客戶端各用一個 HttpClient，避免在測試端共用連線與 selector 執行緒而互相影響
+            HttpClient client = HttpClient.newHttpClient();
+            HttpClient abusiveClient = HttpClient.newHttpClient();
+
+            List<Long> ids = seedUsers(client, baseUrl);
+            warmUp(clients, client, baseUrl, ids);
+
+            List<Long> politeLatencies = Collections.synchronizedList(new ArrayList<>());
+            AtomicInteger politeRejected = new AtomicInteger();
+            AtomicInteger abusiveAccepted = new AtomicInteger();
+            AtomicInteger abusiveRejected = new AtomicInteger();
+            AtomicInteger abusiveSequence = new AtomicInteger();
+            long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DURATION_MILLIS);
+
+            List<Future<?>> futures = new ArrayList<>();
+            for (int c = 0; c < POLITE_CLIENTS; c++) {
+                String clientId = "polite-" + c;
+                futures.add(clients.submit(() -> {
+                    for (int i = 0; System.nanoTime() < deadline; i++) {
+                        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/users/" + ids.get(i % ids.size())))
+                                .header("X-Client-Id", clientId).GET().build();
+                        long start = System.nanoTime();
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        politeLatencies.add(System.nanoTime() - start);
+                        if (response.statusCode() == 429) {
+                            politeRejected.incrementAndGet();
+                        }
+                        Thread.sleep(POLITE_PAUSE_MILLIS);
+                    }
+                    return null;
+                }));
+            }
+            if (withAbusiveClient) {
+                for (int t = 0; t < ABUSIVE_THREADS; t++) {
+                    futures.add(clients.submit(() -> {
+                        // 回應變慢時會落後排程，除了排程時間之外也要檢查實際時間，才不會在期限之後繼續送出
+                        for (long next = System.nanoTime(); next < deadline && System.nanoTime() < deadline;
+                             next += TimeUnit.MILLISECONDS.toNanos(ABUSIVE_INTERVAL_MILLIS)) {
+                            long sleep = next - System.nanoTime();
+                            if (sleep > 0) {
+                                TimeUnit.NANOSECONDS.sleep(sleep);
+                            }
+                            // 建立使用者與讀取整頁交錯
+                            int i = abusiveSequence.incrementAndGet();
+                            HttpRequest request = i % 2 == 0
+                                    ? createUser(baseUrl, "abusive", "abusive-" + i)
+                                    : HttpRequest.newBuilder(URI.create(baseUrl + "/users?limit=1000")).header("X-Client-Id", "abusive").GET().build();
+                            HttpResponse<Void> response = abusiveClient.send(request, HttpResponse.BodyHandlers.discarding());
+                            (response.statusCode() == 429 ? abusiveRejected : abusiveAccepted).incrementAndGet();
+                        }
+                        return null;
+                    }));
+                }
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            return new Result(new ArrayList<>(politeLatencies), politeRejected.get(), abusiveAccepted.get(), abusiveRejected.get());
+        } finally {
+            clients.shutdownNow();
+            context.close();
+        }
+    }
+
+    // 先讓 JIT 編譯完成再開始量測；每個請求使用不同的客戶端 id，不受限流影響
+    private void warmUp(ExecutorService clients, HttpClient client, String baseUrl, List<Long> ids) throws Exception {
+        AtomicInteger next = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int c = 0; c < POLITE_CLIENTS; c++) {
+            futures.add(clients.submit(() -> {
+                for (int i = next.getAndIncrement(); i < WARM_UP_REQUESTS; i = next.getAndIncrement()) {
+                    String path = i % 2 == 0 ? "/users/" + ids.get(i % ids.size()) : "/users?limit=1000";
+                    client.send(HttpRequest.newBuilder(URI.create(baseUrl + path)).header("X-Client-Id", "warm-up-" + i).GET().build(),
+                            HttpResponse.BodyHandlers.discarding());
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+
+    // 以批次匯入建立資料，不受每個客戶端的限流影響
+    private List<Long> seedUsers(HttpClient client, String baseUrl) throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < SEED_USERS; i++) {
+            body.append("{\"name\": \"Seed User\", \"email\": \"seed-").append(i).append("@example.com\"}\n");
+        }
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/users/bulk"))
+                        .header("Content-Type", "application/x-ndjson")
+                        .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        List<Long> ids = new ArrayList<>();
+        objectMapper.readTree(response.body()).get("results").forEach(result -> ids.add(result.get("id").asLong()));
+        return ids;
+    }
+
+    private HttpRequest createUser(String baseUrl, String clientId, String key) {
+        String body = "{\"name\": \"Load User\", \"email\": \"" + key + "@example.com\"}";
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/users"))
+                .header("Content-Type", "application/json")
+                .header("X-Client-Id", clientId)
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private void print(String label, Result result) {
+        long[] sorted = Latencies.sorted(result.politeLatencies());
+        System.out.printf("%-40s polite p50=%.2fms p99=%.2fms rejected=%d, abusive accepted=%d rejected=%d%n", label,
+                Latencies.percentileMillis(sorted, 50), Latencies.percentileMillis(sorted, 99), result.politeRejected(),
+                result.abusiveAccepted(), result.abusiveRejected());
+    }
+}
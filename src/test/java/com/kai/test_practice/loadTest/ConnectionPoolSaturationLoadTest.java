@@ -0,0 +1,152 @@
+package com.kai.test_practice.loadTest;
+
+import com.kai.test_practice.TestPracticeApplication;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// 以相同的負載比較只有 1 條連線的連線池與 datasource-tuning 的連線池，
+// 由 hikaricp 指標判斷延遲有多少來自等待連線
+@Tag("load") // 負載測試，預設不執行：mvn test -Pload-test -Dtest=ConnectionPoolSaturationLoadTest
+public class ConnectionPoolSaturationLoadTest {
+
+    private static final int CLIENTS = 32;
+    private static final int REQUESTS = 6000;
+    private static final int SEED_USERS = 5000;
+
+    private record Result(long[] latencies, int poolSize, double acquireMeanMillis, double acquireMaxMillis,
+                          double maxPending, double throughput) {
+    }
+
+    @Test
+    public void testPoolWaitsShowUpInMetrics() throws Exception {
+        Result undersized = runLoad("undersized", "--spring.datasource.hikari.maximum-pool-size=1",
+                "--spring.datasource.hikari.minimum-idle=1");
+        Result tuned = runLoad("tuned", "--spring.profiles.active=datasource-tuning");
+
+        print("pool of 1", undersized);
+        print("datasource-tuning", tuned);
+
+        // 連線池不足時，請求會排隊等待連線，pending 與取得連線的時間都會上升
+        assertTrue(undersized.maxPending() > 0, "Undersized pool should have pending connection requests");
+        assertTrue(undersized.acquireMeanMillis() > tuned.acquireMeanMillis(),
+                "Acquire time should drop with the tuned pool: " + undersized.acquireMeanMillis() + " vs " + tuned.acquireMeanMillis());
+    }
+
+    // 啟動一個應用程式實例，90% 讀取一頁使用者（不經過快取，每次都需要連線）、10% 建立使用者
+    private Result runLoad(String name, String... properties) throws Exception {
+        List<String> args = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:pool-" + name,
+                // 所有請求來自同一個位址，關閉准入控制才能量測連線池本身
+                "--app.admission.enabled=false"));
+        args.addAll(List.of(properties));
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(TestPracticeApplication.class)
+                .run(args.toArray(String[]::new));
+        ExecutorService httpExecutor = Executors.newFixedThreadPool(CLIENTS);
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        try {
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            HttpClient client = HttpClient.newBuilder().executor(httpExecutor).build();
+            seedUsers(client, baseUrl);
+
+            MeterRegistry meterRegistry = context.getBean(MeterRegistry.class);
+            Gauge pending = meterRegistry.get("hikaricp.connections.pending").gauge();
+            double[] maxPending = {0};
+            sampler.scheduleAtFixedRate(
+                    () -> maxPending[0] = Math.max(maxPending[0], pending.value()), 0, 5, TimeUnit.MILLISECONDS);
+            // 扣除啟動與匯入時的取得連線紀錄，只計算負載期間
+            Timer acquire = meterRegistry.get("hikaricp.connections.acquire").timer();
+            long acquireCountBefore = acquire.count();
+            double acquireTotalBefore = acquire.totalTime(TimeUnit.MILLISECONDS);
+
+            long[] latencies = new long[REQUESTS];
+            AtomicInteger next = new AtomicInteger();
+            AtomicInteger errors = new AtomicInteger();
+            ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+            List<Future<?>> futures = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int c = 0; c < CLIENTS; c++) {
+                futures.add(clients.submit(() -> {
+                    for (int i = next.getAndIncrement(); i < REQUESTS; i = next.getAndIncrement()) {
+                        HttpRequest request = i % 10 == 0
+                                ? createUser(baseUrl, name + "-" + i)
+                                : HttpRequest.newBuilder(URI.create(baseUrl + "/users?limit=100&after="
+                                        + ThreadLocalRandom.current().nextInt(SEED_USERS))).GET().build();
+                        long requestStart = System.nanoTime();
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        latencies[i] = System.nanoTime() - requestStart;
+                        if (response.statusCode() >= 300) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            double elapsedSeconds = (System.nanoTime() - start) / 1_000_000_000.0;
+            clients.shutdown();
+
+            assertEquals(0, errors.get());
+            long acquireCount = acquire.count() - acquireCountBefore;
+            double acquireMean = (acquire.totalTime(TimeUnit.MILLISECONDS) - acquireTotalBefore) / Math.max(acquireCount, 1);
+            return new Result(latencies, (int) meterRegistry.get("hikaricp.connections.max").gauge().value(), acquireMean,
+                    acquire.max(TimeUnit.MILLISECONDS), maxPending[0], REQUESTS / elapsedSeconds);
+        } finally {
+            sampler.shutdownNow();
+            httpExecutor.shutdownNow();
+            context.close();
+        }
+    }
+
+    private void seedUsers(HttpClient client, String baseUrl) throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < SEED_USERS; i++) {
+            body.append("{\"name\": \"Seed User\", \"email\": \"seed-").append(i).append("@example.com\"}\n");
+        }
+        HttpResponse<Void> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/users/bulk"))
+                        .header("Content-Type", "application/x-ndjson")
+                        .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                        .build(),
+                HttpResponse.BodyHandlers.discarding());
+        assertEquals(200, response.statusCode());
+    }
+
+    private HttpRequest createUser(String baseUrl, String key) {
+        String body = "{\"name\": \"Load User\", \"email\": \"" + key + "@example.com\"}";
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/users"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+
+    private void print(String label, Result result) {
+        long[] sorted = Latencies.sorted(result.latencies());
+        System.out.printf("%-18s pool=%d %.0f req/s p50=%.2fms p99=%.2fms acquire mean=%.3fms max=%.2fms max pending=%.0f%n",
+                label, result.poolSize(), result.throughput(), Latencies.percentileMillis(sorted, 50), Latencies.percentileMillis(sorted, 99),
+                result.acquireMeanMillis(), result.acquireMaxMillis(), result.maxPending());
+    }
+}
@@ -0,0 +1,32 @@
+package com.kai.test_practice.loadTest;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+// 負載測試共用的延遲統計，延遲以奈秒記錄，結果以毫秒回傳
+public final class Latencies {
+
+    private Latencies() {
+    }
+
+    public static long[] sorted(long[] latencies) {
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    public static long[] sorted(Collection<Long> latencies) {
+        long[] sorted = latencies.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(sorted);
+        return sorted;
+    }
+
+    // nearest-rank 百分位數，sorted 必須已排序，沒有樣本時回傳 0
+    public static double percentileMillis(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(index, 0)] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,146 @@
+package com.kai.test_practice.loadTest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// 負載測試的結果：整體與各操作的吞吐量、延遲百分位數與錯誤率，以及每個 SLO 是否達成，輸出成 JSON 與 HTML
+public record LoadReport(Instant startedAt, Map<String, Object> config, Stats total, Map<String, Stats> operations,
+                         List<SloResult> slos, boolean passed) {
+
+    private static final ObjectMapper JSON = new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .enable(SerializationFeature.INDENT_OUTPUT);
+
+    public record Stats(long requests, long errors, double errorRate, double throughput,
+                        double p50Millis, double p90Millis, double p99Millis, double p999Millis, double maxMillis) {
+
+        static Stats of(Samples samples, double elapsedSeconds) {
+            long[] sorted = samples.sorted();
+            return new Stats(sorted.length, samples.errors, sorted.length == 0 ? 0 : (double) samples.errors / sorted.length,
+                    sorted.length / elapsedSeconds, Latencies.percentileMillis(sorted, 50), Latencies.percentileMillis(sorted, 90),
+                    Latencies.percentileMillis(sorted, 99), Latencies.percentileMillis(sorted, 99.9), sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1_000_000.0);
+        }
+    }
+
+    public record SloResult(String name, String scope, double threshold, double actual, boolean passed) {
+    }
+
+    // SLO 門檻：每個操作的 p99、整體錯誤率上限與整體吞吐量下限
+    public record Slo(double p99Millis, double maxErrorRate, double minThroughput) {
+    }
+
+    // 單一客戶端記錄的延遲（奈秒），每個客戶端各自一份，記錄時不需要同步
+    public static class Samples {
+        private long[] latencies = new long[1024];
+        private int size;
+        private long errors;
+
+        public void record(long latencyNanos, boolean error) {
+            if (size == latencies.length) {
+                latencies = Arrays.copyOf(latencies, size * 2);
+            }
+            latencies[size++] = latencyNanos;
+            if (error) {
+                errors++;
+            }
+        }
+
+        static Samples merge(Collection<Samples> all) {
+            Samples merged = new Samples();
+            merged.latencies = new long[Math.max(all.stream().mapToInt(samples -> samples.size).sum(), 1)];
+            for (Samples samples : all) {
+                System.arraycopy(samples.latencies, 0, merged.latencies, merged.size, samples.size);
+                merged.size += samples.size;
+                merged.errors += samples.errors;
+            }
+            return merged;
+        }
+
+        long[] sorted() {
+            long[] sorted = Arrays.copyOf(latencies, size);
+            Arrays.sort(sorted);
+            return sorted;
+        }
+    }
+
+    public static LoadReport of(Instant startedAt, Map<String, Object> config, Map<TrafficMix.Operation, List<Samples>> samples,
+                                double elapsedSeconds, Slo slo) {
+        Map<String, Stats> operations = new LinkedHashMap<>();
+        List<Samples> all = new ArrayList<>();
+        samples.forEach((operation, perClient) -> {
+            Samples merged = Samples.merge(perClient);
+            operations.put(operation.key(), Stats.of(merged, elapsedSeconds));
+            all.add(merged);
+        });
+        Stats total = Stats.of(Samples.merge(all), elapsedSeconds);
+
+        List<SloResult> slos = new ArrayList<>();
+        operations.forEach((operation, stats) ->
+                slos.add(new SloResult("p99 latency (ms)", operation, slo.p99Millis(), stats.p99Millis(), stats.p99Millis() <= slo.p99Millis())));
+        slos.add(new SloResult("error rate", "total", slo.maxErrorRate(), total.errorRate(), total.errorRate() <= slo.maxErrorRate()));
+        slos.add(new SloResult("throughput (req/s)", "total", slo.minThroughput(), total.throughput(), total.throughput() >= slo.minThroughput()));
+        return new LoadReport(startedAt, config, total, operations, slos, slos.stream().allMatch(SloResult::passed));
+    }
+
+    public List<SloResult> failedSlos() {
+        return slos.stream().filter(result -> !result.passed()).toList();
+    }
+
+    // 寫出 <name>.json 與 <name>.html，回傳 HTML 的路徑
+    public Path write(Path directory, String name) throws IOException {
+        Files.createDirectories(directory);
+        JSON.writeValue(directory.resolve(name + ".json").toFile(), this);
+        Path html = directory.resolve(name + ".html");
+        Files.writeString(html, toHtml(name), StandardCharsets.UTF_8);
+        return html;
+    }
+
+    private String toHtml(String name) {
+        StringBuilder html = new StringBuilder()
+                .append("<!DOCTYPE html>\n<html><head><meta charset=\"utf-8\"><title>").append(name).append("</title>\n")
+                .append("<style>body{font-family:sans-serif}table{border-collapse:collapse;margin-bottom:1em}")
+                .append("td,th{border:1px solid #ccc;padding:4px 8px;text-align:right}th:first-child,td:first-child{text-align:left}")
+                .append(".pass{background:#dfd}.fail{background:#fdd}</style></head><body>\n")
+                .append("<h1>").append(name).append(passed ? " &mdash; passed" : " &mdash; FAILED").append("</h1>\n")
+                .append("<p>Started at ").append(startedAt).append("</p>\n<table>\n");
+        config.forEach((key, value) -> html.append("<tr><th>").append(key).append("</th><td>").append(value).append("</td></tr>\n"));
+        html.append("</table>\n<table>\n<tr><th>operation</th><th>requests</th><th>errors</th><th>error rate</th><th>req/s</th>")
+                .append("<th>p50 ms</th><th>p90 ms</th><th>p99 ms</th><th>p99.9 ms</th><th>max ms</th></tr>\n");
+        operations.forEach((operation, stats) -> appendStats(html, operation, stats));
+        appendStats(html, "total", total);
+        html.append("</table>\n<table>\n<tr><th>SLO</th><th>scope</th><th>threshold</th><th>actual</th><th>result</th></tr>\n");
+        for (SloResult slo : slos) {
+            html.append("<tr class=\"").append(slo.passed() ? "pass" : "fail").append("\"><td>").append(slo.name())
+                    .append("</td><td>").append(slo.scope())
+                    .append("</td><td>").append(format(slo.threshold()))
+                    .append("</td><td>").append(format(slo.actual()))
+                    .append("</td><td>").append(slo.passed() ? "pass" : "fail").append("</td></tr>\n");
+        }
+        return html.append("</table>\n</body></html>\n").toString();
+    }
+
+    private static void appendStats(StringBuilder html, String label, Stats stats) {
+        html.append("<tr><td>").append(label).append("</td><td>").append(stats.requests()).append("</td><td>").append(stats.errors())
+                .append("</td><td>").append(format(stats.errorRate())).append("</td><td>").append(format(stats.throughput()))
+                .append("</td><td>").append(format(stats.p50Millis())).append("</td><td>").append(format(stats.p90Millis()))
+                .append("</td><td>").append(format(stats.p99Millis())).append("</td><td>").append(format(stats.p999Millis()))
+                .append("</td><td>").append(format(stats.maxMillis())).append("</td></tr>\n");
+    }
+
+    private static String format(double value) {
+        return String.format("%.3f", value);
+    }
+}
@@ -0,0 +1,190 @@
+package com.kai.test_practice.loadTest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kai.test_practice.TestPracticeApplication;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// 以真正的 HTTP 對完整的應用程式送出混合流量，輸出 target/load-test/traffic-mix.{json,html}，未達 SLO 時測試失敗：
+// mvn test -Pload-test -Dtest=TrafficMixLoadTest -Dload.clients=128 -Dload.duration=60s -Dload.mix=create=20,get=60,list=20 -Dload.slo.p99=200ms
+@Tag("load") // 負載測試，預設不執行：mvn test -Pload-test
+public class TrafficMixLoadTest {
+
+    private static final TrafficMix MIX = TrafficMix.parse(System.getProperty("load.mix", "create=10,get=70,list=20"));
+    private static final int CLIENTS = Integer.getInteger("load.clients", 32);
+    private static final Duration DURATION = duration("load.duration", "20s");
+    private static final Duration WARM_UP = duration("load.warm-up", "5s");
+    private static final int SEED_USERS = Integer.getInteger("load.seed-users", 1000);
+    private static final int PAGE_SIZE = Integer.getInteger("load.page-size", 20);
+    // 預設關閉准入控制，量測應用程式本身的容量；開啟時每個客戶端以 X-Client-Id 各自計算速率
+    private static final boolean ADMISSION = Boolean.getBoolean("load.admission");
+    private static final Path REPORT_DIR = Path.of(System.getProperty("load.report-dir", "target/load-test"));
+    private static final LoadReport.Slo SLO = new LoadReport.Slo(
+            duration("load.slo.p99", "1s").toNanos() / 1_000_000.0,
+            Double.parseDouble(System.getProperty("load.slo.error-rate", "0.001")),
+            Double.parseDouble(System.getProperty("load.slo.min-throughput", "50")));
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void testTrafficMixMeetsSlo() throws Exception {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(TestPracticeApplication.class)
+                // 以命令列參數傳入，才能覆蓋 application.yaml 中的設定
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:traffic-mix",
+                        "--app.admission.enabled=" + ADMISSION,
+                        "--app.admission.rate-limit.client-header=X-Client-Id");
+        ExecutorService executor = clientExecutor();
+        try {
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            HttpClient client = HttpClient.newBuilder()
+                    .executor(executor)
+                    .connectTimeout(Duration.ofSeconds(5))
+                    .build();
+            List<Long> ids = seedUsers(client, baseUrl);
+
+            // 暖身的結果不列入報告，讓 JIT 編譯與快取先穩定下來
+            run(client, baseUrl, ids, executor, "warm-up", WARM_UP);
+            Instant startedAt = Instant.now();
+            long start = System.nanoTime();
+            Map<TrafficMix.Operation, List<LoadReport.Samples>> samples = run(client, baseUrl, ids, executor, "load", DURATION);
+            double elapsedSeconds = (System.nanoTime() - start) / 1_000_000_000.0;
+
+            LoadReport report = LoadReport.of(startedAt, config(), samples, elapsedSeconds, SLO);
+            Path html = report.write(REPORT_DIR, "traffic-mix");
+            System.out.printf("traffic mix %s with %d clients: %.0f req/s, p50=%.2fms p99=%.2fms, error rate %.4f, report: %s%n",
+                    MIX, CLIENTS, report.total().throughput(), report.total().p50Millis(), report.total().p99Millis(),
+                    report.total().errorRate(), html.toAbsolutePath());
+            report.operations().forEach((operation, stats) -> System.out.printf("  %-6s %6d requests p50=%.2fms p99=%.2fms errors=%d%n",
+                    operation, stats.requests(), stats.p50Millis(), stats.p99Millis(), stats.errors()));
+
+            assertTrue(report.passed(), "SLO breached: " + report.failedSlos());
+        } finally {
+            executor.shutdownNow();
+            context.close();
+        }
+    }
+
+    // 每個客戶端在時間內連續送出請求（closed loop），各自記錄延遲，結束後再合併
+    private Map<TrafficMix.Operation, List<LoadReport.Samples>> run(HttpClient client, String baseUrl, List<Long> ids,
+                                                                     ExecutorService executor, String phase, Duration duration)
+            throws Exception {
+        long deadline = System.nanoTime() + duration.toNanos();
+        List<Future<Map<TrafficMix.Operation, LoadReport.Samples>>> futures = new ArrayList<>();
+        for (int c = 0; c < CLIENTS; c++) {
+            String clientId = phase + "-" + c;
+            SplittableRandom random = new SplittableRandom(c);
+            futures.add(executor.submit(() -> {
+                Map<TrafficMix.Operation, LoadReport.Samples> samples = new EnumMap<>(TrafficMix.Operation.class);
+                for (long n = 0; System.nanoTime() < deadline; n++) {
+                    TrafficMix.Operation operation = MIX.pick(random);
+                    HttpRequest request = request(operation, baseUrl, clientId, n, ids, random);
+                    long requestStart = System.nanoTime();
+                    boolean error;
+                    try {
+                        error = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() >= 400;
+                    } catch (IOException e) {
+                        error = true;
+                    }
+                    samples.computeIfAbsent(operation, key -> new LoadReport.Samples()).record(System.nanoTime() - requestStart, error);
+                }
+                return samples;
+            }));
+        }
+
+        Map<TrafficMix.Operation, List<LoadReport.Samples>> merged = new EnumMap<>(TrafficMix.Operation.class);
+        for (Future<Map<TrafficMix.Operation, LoadReport.Samples>> future : futures) {
+            future.get(duration.toSeconds() + 60, TimeUnit.SECONDS)
+                    .forEach((operation, samples) -> merged.computeIfAbsent(operation, key -> new ArrayList<>()).add(samples));
+        }
+        return merged;
+    }
+
+    private HttpRequest request(TrafficMix.Operation operation, String baseUrl, String clientId, long n, List<Long> ids,
+                                SplittableRandom random) {
+        HttpRequest.Builder request = switch (operation) {
+            case CREATE -> HttpRequest.newBuilder(URI.create(baseUrl + "/users"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(
+                            "{\"name\": \"Load User\", \"email\": \"" + clientId + "-" + n + "@example.com\"}"));
+            case GET -> HttpRequest.newBuilder(URI.create(baseUrl + "/users/" + ids.get(random.nextInt(ids.size()))));
+            case LIST -> HttpRequest.newBuilder(URI.create(baseUrl + "/users?limit=" + PAGE_SIZE
+                    + "&after=" + ids.get(random.nextInt(ids.size()))));
+        };
+        return request.header("X-Client-Id", clientId).timeout(Duration.ofSeconds(10)).build();
+    }
+
+    private List<Long> seedUsers(HttpClient client, String baseUrl) throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < SEED_USERS; i++) {
+            body.append("{\"name\": \"Seed User\", \"email\": \"seed-").append(i).append("@example.com\"}\n");
+        }
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/users/bulk"))
+                        .header("Content-Type", "application/x-ndjson")
+                        .header("X-Client-Id", "seed")
+                        .POST(HttpRequest.BodyPublishers.ofString(body.toString()))
+                        .build(),
+                HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode());
+        List<Long> ids = new ArrayList<>();
+        objectMapper.readTree(response.body()).get("results").forEach(result -> ids.add(result.get("id").asLong()));
+        return ids;
+    }
+
+    private Map<String, Object> config() {
+        Map<String, Object> config = new LinkedHashMap<>();
+        config.put("mix", MIX.toString());
+        config.put("clients", CLIENTS);
+        config.put("duration", DURATION.toString());
+        config.put("warmUp", WARM_UP.toString());
+        config.put("seedUsers", SEED_USERS);
+        config.put("pageSize", PAGE_SIZE);
+        config.put("admissionControl", ADMISSION);
+        config.put("java", Runtime.version().toString());
+        config.put("virtualThreadClients", Runtime.version().feature() >= 21);
+        config.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        return config;
+    }
+
+    // Java 21 以上每個客戶端使用一條 virtual thread，否則退回固定大小的平台執行緒池；專案仍以 Java 17 編譯，因此以反射建立
+    private static ExecutorService clientExecutor() {
+        if (Runtime.version().feature() >= 21) {
+            try {
+                return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+        // HttpClient 的回應處理也使用這個執行緒池，多留一些執行緒
+        return Executors.newFixedThreadPool(CLIENTS * 2);
+    }
+
+    private static Duration duration(String property, String defaultValue) {
+        return DurationStyle.detectAndParse(System.getProperty(property, defaultValue));
+    }
+}
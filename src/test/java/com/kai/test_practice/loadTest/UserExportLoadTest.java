@@ -0,0 +1,137 @@
+package com.kai.test_practice.loadTest;
+
+import com.kai.test_practice.TestPracticeApplication;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@Tag("load") // 負載測試，預設不執行：mvn test -Pload-test
+public class UserExportLoadTest {
+
+    // 可用 -Dexport.rows=2000000 調整資料量
+    private static final int ROWS = Integer.getInteger("export.rows", 500_000);
+
+    @Test
+    public void testExportThroughputAndPeakHeap() throws Exception {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(TestPracticeApplication.class)
+                // 以命令列參數傳入，才能覆蓋 application.yaml 中的設定
+                .run("--server.port=0",
+                        "--spring.datasource.url=jdbc:h2:mem:export-load");
+        try {
+            seedUsers(context.getBean(JdbcTemplate.class));
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            HttpClient client = HttpClient.newHttpClient();
+
+            // 先跑一次暖身，讓 JIT 編譯完成
+            export(client, baseUrl + "/users/export?format=csv", false);
+
+            for (String query : new String[]{"format=csv", "format=ndjson", "format=csv&gzip=true", "format=ndjson&gzip=true"}) {
+                boolean gzip = query.endsWith("gzip=true");
+                long baseline = resetPeakHeap();
+                long start = System.nanoTime();
+                long[] result = export(client, baseUrl + "/users/export?" + query, gzip);
+                long elapsed = System.nanoTime() - start;
+                long peak = peakHeap();
+
+                // 第一列是 CSV 的欄位名稱
+                assertEquals(ROWS, query.startsWith("format=csv") ? result[0] - 1 : result[0]);
+                System.out.printf("export %-24s %,d rows in %,d ms: %,.0f rows/s, %,d KB on the wire, peak heap +%,d MB%n",
+                        query, ROWS, elapsed / 1_000_000, ROWS * 1_000_000_000.0 / elapsed, result[1] / 1024,
+                        (peak - baseline) / (1024 * 1024));
+            }
+        } finally {
+            context.close();
+        }
+    }
+
+    // 直接在資料庫中產生資料，不經過 API，才能快速建立大量資料
+    private void seedUsers(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.update("insert into users (id, name, email, normalized_email, code, version) "
+                + "select next value for users_seq, 'Export User ' || x, 'export-' || x || '@example.com', "
+                + "'export-' || x || '@example.com', 'USER-EXPORT' || x, 0 from system_range(1, ?)", ROWS);
+    }
+
+    // 逐塊讀取回應並計算換行數，回傳 {行數, 傳輸的位元組數}
+    private long[] export(HttpClient client, String url, boolean gzip) throws IOException, InterruptedException {
+        HttpResponse<InputStream> response = client.send(HttpRequest.newBuilder(URI.create(url)).GET().build(),
+                HttpResponse.BodyHandlers.ofInputStream());
+        assertEquals(200, response.statusCode());
+        CountingInputStream wire = new CountingInputStream(response.body());
+        long lines = 0;
+        try (InputStream body = gzip ? new GZIPInputStream(wire, 64 * 1024) : wire) {
+            byte[] buffer = new byte[64 * 1024];
+            for (int n = body.read(buffer); n != -1; n = body.read(buffer)) {
+                for (int i = 0; i < n; i++) {
+                    if (buffer[i] == '\n') {
+                        lines++;
+                    }
+                }
+            }
+        }
+        return new long[]{lines, wire.count};
+    }
+
+    // 先 GC 並重設各個 heap 區域的峰值，回傳目前的 heap 用量
+    private long resetPeakHeap() {
+        System.gc();
+        long used = 0;
+        for (MemoryPoolMXBean pool : heapPools()) {
+            pool.resetPeakUsage();
+            used += pool.getUsage().getUsed();
+        }
+        return used;
+    }
+
+    // 注意：應用程式與測試在同一個 JVM 中，峰值也包含 HTTP client 與還沒被回收的短期物件
+    private long peakHeap() {
+        return heapPools().stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+    }
+
+    private List<MemoryPoolMXBean> heapPools() {
+        return ManagementFactory.getMemoryPoolMXBeans().stream()
+                .filter(pool -> pool.getType() == MemoryType.HEAP)
+                .toList();
+    }
+
+    private static final class CountingInputStream extends java.io.FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.kai.test_practice.loadTest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kai.test_practice.TestPracticeApplication;
+import org.junit.jupiter.api.Assumptions;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@Tag("load") // 負載測試，預設不執行：mvn test -Pload-test
+public class VirtualThreadLoadTest {
+
+    private static final int CLIENTS = 64;
+    private static final int REQUESTS = 6000;
+    private static final int SEED_USERS = 200;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    public void testCompareP99WithAndWithoutVirtualThreads() throws Exception {
+        Assumptions.assumeTrue(Runtime.version().feature() >= 21, "Virtual threads require Java 21");
+
+        // 兩次都限制 Tomcat 只有少量平台執行緒，模擬流量高峰時執行緒不足的情況
+        long[] platform = Latencies.sorted(runLoad(false));
+        long[] virtual = Latencies.sorted(runLoad(true));
+
+        System.out.printf("platform threads: p50=%.2fms p99=%.2fms%n", Latencies.percentileMillis(platform, 50), Latencies.percentileMillis(platform, 99));
+        System.out.printf("virtual threads:  p50=%.2fms p99=%.2fms%n", Latencies.percentileMillis(virtual, 50), Latencies.percentileMillis(virtual, 99));
+    }
+
+    // 啟動一個應用程式實例並送出混合的讀寫請求，回傳每個請求的延遲（奈秒）
+    private long[] runLoad(boolean virtualThreads) throws Exception {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(TestPracticeApplication.class)
+                .profiles(virtualThreads ? new String[]{"virtual-threads"} : new String[0])
+                // 以命令列參數傳入，才能覆蓋 application.yaml 中的設定
+                .run("--server.port=0",
+                        "--server.tomcat.threads.max=16",
+                        "--spring.datasource.url=jdbc:h2:mem:load-" + virtualThreads,
+                        "--spring.jpa.show-sql=false",
+                        // 所有請求來自同一個位址，關閉准入控制才能量測執行緒模型本身
+                        "--app.admission.enabled=false");
+        ExecutorService httpExecutor = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port");
+            HttpClient client = HttpClient.newBuilder().executor(httpExecutor).build();
+
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < SEED_USERS; i++) {
+                HttpResponse<String> response = client.send(createUser(baseUrl, "seed-" + i), HttpResponse.BodyHandlers.ofString());
+                ids.add(objectMapper.readTree(response.body()).get("id").asLong());
+            }
+
+            long[] latencies = new long[REQUESTS];
+            AtomicInteger next = new AtomicInteger();
+            AtomicInteger errors = new AtomicInteger();
+            ExecutorService clients = Executors.newFixedThreadPool(CLIENTS);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int c = 0; c < CLIENTS; c++) {
+                futures.add(clients.submit(() -> {
+                    for (int i = next.getAndIncrement(); i < REQUESTS; i = next.getAndIncrement()) {
+                        // 90% 讀取單一使用者，10% 建立新使用者
+                        HttpRequest request = i % 10 == 0
+                                ? createUser(baseUrl, "load-" + i)
+                                : HttpRequest.newBuilder(URI.create(baseUrl + "/users/" + ids.get(i % ids.size()))).GET().build();
+                        long start = System.nanoTime();
+                        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+                        latencies[i] = System.nanoTime() - start;
+                        if (response.statusCode() >= 300) {
+                            errors.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+            clients.shutdown();
+
+            assertEquals(0, errors.get());
+            return latencies;
+        } finally {
+            httpExecutor.shutdownNow();
+            context.close();
+        }
+    }
+
+    private HttpRequest createUser(String baseUrl, String key) {
+        String body = "{\"name\": \"Load User\", \"email\": \"" + key + "@example.com\"}";
+        return HttpRequest.newBuilder(URI.create(baseUrl + "/users"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+    }
+}
@@ -0,0 +1,78 @@
+package com.kai.test_practice.unitTest;
+
+import com.kai.test_practice.admission.AdaptiveConcurrencyLimiter;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AdaptiveConcurrencyLimiterUnitTest {
+
+    private static final Duration WINDOW = Duration.ofMillis(100);
+
+    private final AtomicLong now = new AtomicLong(); // 手動控制的時間（奈秒）
+
+    @Test
+    public void testRejectsAboveLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 1, 10, 2.0, WINDOW, now::get);
+
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(5));
+        assertTrue(limiter.tryAcquire());
+        assertEquals(2, limiter.getInFlight());
+    }
+
+    @Test
+    public void testLimitGrowsWhileLatencyIsStableAndShrinksWhenItRises() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 10, 200, 2.0, WINDOW, now::get);
+
+        // 延遲穩定且請求量接近上限：上限逐步提高
+        for (int i = 0; i < 10; i++) {
+            runWindow(limiter, limiter.getLimit(), 10);
+        }
+        int grown = limiter.getLimit();
+        assertTrue(grown > 20, "limit " + grown);
+
+        // 延遲變成原本的 10 倍，代表開始排隊：上限下降
+        for (int i = 0; i < 5; i++) {
+            runWindow(limiter, limiter.getLimit(), 100);
+        }
+        assertTrue(limiter.getLimit() < grown, "limit " + limiter.getLimit());
+    }
+
+    @Test
+    public void testLimitDoesNotGrowWhenUnderused() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 10, 200, 2.0, WINDOW, now::get);
+
+        // 同時只有 2 個請求，延遲無法反映容量
+        for (int i = 0; i < 10; i++) {
+            runWindow(limiter, 2, 10);
+        }
+        assertEquals(20, limiter.getLimit());
+    }
+
+    // 同時送出 concurrency 個請求，重複到 window 結束，每個請求的延遲為 latencyMillis
+    private void runWindow(AdaptiveConcurrencyLimiter limiter, int concurrency, long latencyMillis) {
+        for (int round = 0; round < 5; round++) {
+            int acquired = 0;
+            while (acquired < concurrency && limiter.tryAcquire()) {
+                acquired++;
+            }
+            for (int i = 0; i < acquired; i++) {
+                limiter.release(TimeUnit.MILLISECONDS.toNanos(latencyMillis));
+            }
+        }
+        now.addAndGet(WINDOW.toNanos());
+        // 這個 window 結束後的第一個完成的請求觸發調整
+        assertTrue(limiter.tryAcquire());
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(latencyMillis));
+    }
+}
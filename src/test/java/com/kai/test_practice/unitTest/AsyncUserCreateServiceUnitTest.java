@@ -0,0 +1,173 @@
+package com.kai.test_practice.unitTest;
+
+import com.kai.test_practice.cache.NoOpEmailFilter;
+import com.kai.test_practice.entities.AsyncCreateUserStatus;
+import com.kai.test_practice.entities.BulkCreateUserResult;
+import com.kai.test_practice.entities.BulkCreateUsersResponse;
+import com.kai.test_practice.entities.CreateUserRequest;
+import com.kai.test_practice.entities.User;
+import com.kai.test_practice.exceptions.UserQueueFullException;
+import com.kai.test_practice.repositories.UserRepository;
+import com.kai.test_practice.services.AsyncUserCreateService;
+import com.kai.test_practice.services.UserImportService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AsyncUserCreateServiceUnitTest {
+
+    private UserRepository userRepository;
+    private UserImportService userImportService;
+    private CountDownLatch writerStarted;
+    private CountDownLatch releaseWriter; // 在測試放行之前，背景執行緒會停在第一批寫入
+    private List<Integer> batchSizes;
+
+    @BeforeEach
+    public void setUp() {
+        userRepository = Mockito.mock(UserRepository.class);
+        userImportService = Mockito.mock(UserImportService.class);
+        writerStarted = new CountDownLatch(1);
+        releaseWriter = new CountDownLatch(1);
+        batchSizes = new ArrayList<>();
+
+        AtomicLong ids = new AtomicLong();
+        Mockito.when(userImportService.importUsers(Mockito.any())).thenAnswer(invocation -> {
+            writerStarted.countDown();
+            assertTrue(releaseWriter.await(5, TimeUnit.SECONDS));
+            Iterator<CreateUserRequest> requests = invocation.getArgument(0);
+            List<BulkCreateUserResult> results = new ArrayList<>();
+            while (requests.hasNext()) {
+                User user = User.builder().id(ids.incrementAndGet()).email(requests.next().getEmail()).build();
+                results.add(BulkCreateUserResult.created(results.size(), user));
+            }
+            batchSizes.add(results.size());
+            return new BulkCreateUsersResponse(results);
+        });
+    }
+
+    private AsyncUserCreateService createService(int queueCapacity) {
+        return createService(queueCapacity, Duration.ofSeconds(5));
+    }
+
+    private AsyncUserCreateService createService(int queueCapacity, Duration shutdownTimeout) {
+        AsyncUserCreateService service = new AsyncUserCreateService(userRepository, new NoOpEmailFilter(), userImportService, queueCapacity, 10,
+                Duration.ofMinutes(1), 1000, shutdownTimeout, new SimpleMeterRegistry());
+        service.start();
+        return service;
+    }
+
+    @Test
+    public void testRejectsWhenQueueIsFull() throws Exception {
+        AsyncUserCreateService service = createService(2);
+
+        // 第一筆被背景執行緒取出並卡在寫入，接下來兩筆填滿佇列
+        service.submit(new CreateUserRequest("User 0", "user0@example.com"));
+        assertTrue(writerStarted.await(5, TimeUnit.SECONDS));
+        service.submit(new CreateUserRequest("User 1", "user1@example.com"));
+        service.submit(new CreateUserRequest("User 2", "user2@example.com"));
+
+        assertThrows(UserQueueFullException.class, () -> service.submit(new CreateUserRequest("User 3", "user3@example.com")));
+
+        releaseWriter.countDown();
+        service.shutdown();
+    }
+
+    @Test
+    public void testRejectsReservedEmail() throws Exception {
+        AsyncUserCreateService service = createService(10);
+
+        service.submit(new CreateUserRequest("User", "same@example.com"));
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+                () -> service.submit(new CreateUserRequest("User", "same@example.com")));
+        assertEquals("Email already exists: same@example.com", e.getMessage());
+
+        releaseWriter.countDown();
+        service.shutdown();
+    }
+
+    @Test
+    public void testShutdownDrainsAcceptedRequests() throws Exception {
+        AsyncUserCreateService service = createService(100);
+
+        List<AsyncCreateUserStatus> accepted = new ArrayList<>();
+        accepted.add(service.submit(new CreateUserRequest("User 0", "user0@example.com")));
+        assertTrue(writerStarted.await(5, TimeUnit.SECONDS));
+        for (int i = 1; i < 25; i++) {
+            accepted.add(service.submit(new CreateUserRequest("User " + i, "user" + i + "@example.com")));
+        }
+
+        // 關閉時停止接受新的請求，但已接受的請求都要寫入
+        releaseWriter.countDown();
+        service.shutdown();
+        assertThrows(UserQueueFullException.class, () -> service.submit(new CreateUserRequest("Late", "late@example.com")));
+
+        for (AsyncCreateUserStatus status : accepted) {
+            assertEquals(AsyncCreateUserStatus.Status.CREATED, service.getStatus(status.getRequestId()).orElseThrow().getStatus());
+        }
+        // 佇列中累積的請求以批次寫入：1 筆之後是 10、10、4
+        assertEquals(List.of(1, 10, 10, 4), batchSizes);
+    }
+
+    @Test
+    public void testRequestsLeftAfterShutdownTimeoutAreMarkedFailed() throws Exception {
+        AsyncUserCreateService service = createService(100, Duration.ofMillis(200));
+
+        // 第一筆卡在寫入，之後的請求留在佇列中
+        service.submit(new CreateUserRequest("User 0", "user0@example.com"));
+        assertTrue(writerStarted.await(5, TimeUnit.SECONDS));
+        List<AsyncCreateUserStatus> queued = new ArrayList<>();
+        for (int i = 1; i < 5; i++) {
+            queued.add(service.submit(new CreateUserRequest("User " + i, "user" + i + "@example.com")));
+        }
+
+        service.shutdown();
+
+        // 沒有寫入的請求不會一直停在 PENDING
+        for (AsyncCreateUserStatus status : queued) {
+            AsyncCreateUserStatus current = service.getStatus(status.getRequestId()).orElseThrow();
+            assertEquals(AsyncCreateUserStatus.Status.FAILED, current.getStatus());
+        }
+    }
+
+    @Test
+    public void testFailedBatchIsRetriedOneByOne() throws Exception {
+        // 整批寫入失敗；逐筆重試時只有 bad@example.com 失敗
+        AtomicLong ids = new AtomicLong();
+        Mockito.doAnswer(invocation -> {
+            assertTrue(releaseWriter.await(5, TimeUnit.SECONDS));
+            Iterator<CreateUserRequest> requests = invocation.getArgument(0);
+            List<CreateUserRequest> batch = new ArrayList<>();
+            requests.forEachRemaining(batch::add);
+            if (batch.size() > 1 || batch.get(0).getEmail().equals("bad@example.com")) {
+                throw new IllegalStateException("Database error");
+            }
+            User user = User.builder().id(ids.incrementAndGet()).email(batch.get(0).getEmail()).build();
+            return new BulkCreateUsersResponse(List.of(BulkCreateUserResult.created(0, user)));
+        }).when(userImportService).importUsers(Mockito.any());
+        AsyncUserCreateService service = createService(100);
+
+        // 在背景執行緒放行之前送出，大多會在同一批寫入
+        AsyncCreateUserStatus first = service.submit(new CreateUserRequest("User 0", "user0@example.com"));
+        AsyncCreateUserStatus bad = service.submit(new CreateUserRequest("Bad User", "bad@example.com"));
+        AsyncCreateUserStatus second = service.submit(new CreateUserRequest("User 1", "user1@example.com"));
+        releaseWriter.countDown();
+        service.shutdown();
+
+        assertEquals(AsyncCreateUserStatus.Status.CREATED, service.getStatus(first.getRequestId()).orElseThrow().getStatus());
+        assertEquals(AsyncCreateUserStatus.Status.FAILED, service.getStatus(bad.getRequestId()).orElseThrow().getStatus());
+        assertEquals(AsyncCreateUserStatus.Status.CREATED, service.getStatus(second.getRequestId()).orElseThrow().getStatus());
+    }
+}
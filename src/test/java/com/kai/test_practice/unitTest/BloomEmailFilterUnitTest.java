@@ -0,0 +1,75 @@
+package com.kai.test_practice.unitTest;
+
+import com.kai.test_practice.cache.BloomEmailFilter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BloomEmailFilterUnitTest {
+
+    private static final int EMAILS = 100_000;
+
+    private MeterRegistry meterRegistry;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+    }
+
+    @Test
+    public void testMightContainUntilWarmedUp() {
+        BloomEmailFilter filter = new BloomEmailFilter(EMAILS, 0.01, 1024 * 1024, meterRegistry);
+
+        // 預熱完成前不能確定任何 email 不存在
+        assertTrue(filter.mightContain("new@example.com"));
+
+        filter.warmUp(put -> List.of("john.doe@example.com", "jane.smith@example.com").forEach(put));
+        assertTrue(filter.isWarmedUp());
+        assertTrue(filter.mightContain("john.doe@example.com"));
+        assertFalse(filter.mightContain("new@example.com"));
+
+        // 寫入後立即可見
+        filter.put("new@example.com");
+        assertTrue(filter.mightContain("new@example.com"));
+    }
+
+    @Test
+    public void testNoFalseNegativesAndFalsePositiveRateNearConfigured() {
+        BloomEmailFilter filter = new BloomEmailFilter(EMAILS, 0.01, 1024 * 1024, meterRegistry);
+        filter.warmUp(put -> {
+            for (int i = 0; i < EMAILS; i++) {
+                put.accept("user" + i + "@example.com");
+            }
+        });
+
+        for (int i = 0; i < EMAILS; i++) {
+            assertTrue(filter.mightContain("user" + i + "@example.com"));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < EMAILS; i++) {
+            if (filter.mightContain("other" + i + "@example.com")) {
+                falsePositives++;
+            }
+        }
+        double rate = (double) falsePositives / EMAILS;
+        assertTrue(rate < 0.02, "false-positive rate " + rate);
+        assertEquals(0.01, filter.expectedFalsePositiveRate(), 0.002);
+        assertEquals(EMAILS - falsePositives, meterRegistry.counter("users.email.filter.checks", "result", "absent").count());
+    }
+
+    @Test
+    public void testMemoryLimitCapsFilterSize() {
+        // 一千萬筆、1% 需要約 12 MB，上限 1 MB 時以上限配置
+        BloomEmailFilter filter = new BloomEmailFilter(10_000_000, 0.01, 1024 * 1024, meterRegistry);
+
+        assertEquals(1024 * 1024, filter.sizeInBytes());
+        assertEquals(1024 * 1024.0, meterRegistry.get("users.email.filter.size").gauge().value());
+    }
+}
@@ -0,0 +1,147 @@
+package com.kai.test_practice.unitTest;
+
+import com.kai.test_practice.cache.CaffeineUserCache;
+import com.kai.test_practice.entities.UserSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CaffeineUserCacheUnitTest {
+
+    private MeterRegistry meterRegistry;
+    private CaffeineUserCache userCache;
+    private AtomicInteger loads; // 記錄 loader 被呼叫的次數，也就是實際查詢資料庫的次數
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        userCache = new CaffeineUserCache(100, Duration.ofMinutes(10), 100, Duration.ofMinutes(1), meterRegistry);
+        loads = new AtomicInteger();
+    }
+
+    private Function<Long, Optional<UserSummary>> loader(UserSummary user) {
+        return id -> {
+            loads.incrementAndGet();
+            return Optional.ofNullable(user);
+        };
+    }
+
+    @Test
+    public void testReadThroughLoadsOnlyOnce() {
+        UserSummary user = new UserSummary(1L, "John Doe", "john.doe@example.com", "123", 0L);
+
+        assertEquals(user, userCache.get(1L, loader(user)).orElseThrow());
+        assertEquals(user, userCache.get(1L, loader(user)).orElseThrow());
+
+        assertEquals(1, loads.get()); // 第二次由快取回應
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "users").tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "users").tag("result", "miss").functionCounter().count());
+    }
+
+    @Test
+    public void testMissingIdIsCached() {
+        assertTrue(userCache.get(99L, loader(null)).isEmpty());
+        assertTrue(userCache.get(99L, loader(null)).isEmpty());
+
+        assertEquals(1, loads.get()); // 不存在的 id 也只查詢一次
+    }
+
+    @Test
+    public void testPutReplacesNegativeEntry() {
+        UserSummary user = new UserSummary(5L, "Jane Smith", "jane.smith@example.com", "456", 0L);
+        assertTrue(userCache.get(5L, loader(null)).isEmpty());
+
+        // 建立使用者之後，之前記住的「不存在」必須失效
+        userCache.put(user);
+
+        assertEquals(user, userCache.get(5L, loader(null)).orElseThrow());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testEvictForcesReload() {
+        UserSummary user = new UserSummary(7L, "John Doe", "john.doe@example.com", "123", 0L);
+        userCache.get(7L, loader(user));
+
+        userCache.evict(7L);
+        userCache.get(7L, loader(user));
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testNegativeEntryDoesNotOverwriteConcurrentPut() throws Exception {
+        UserSummary user = new UserSummary(9L, "Jane Smith", "jane.smith@example.com", "456", 0L);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // 查詢在使用者建立之前就讀到「不存在」，但在 put() 之後才回來
+        CompletableFuture<Optional<UserSummary>> staleRead = CompletableFuture.supplyAsync(() -> userCache.get(9L, id -> {
+            loading.countDown();
+            await(release);
+            return Optional.empty();
+        }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        Thread create = startAndWaitUntilBlocked(() -> userCache.put(user));
+        release.countDown();
+        staleRead.get(5, TimeUnit.SECONDS);
+        create.join(5000);
+
+        // 不存在的記錄不能留下，users 被淘汰後也要重新查詢
+        assertEquals(0.0, meterRegistry.get("cache.size").tag("cache", "users.missing").gauge().value());
+        assertEquals(user, userCache.get(9L, loader(null)).orElseThrow());
+    }
+
+    @Test
+    public void testNegativeEntryDoesNotSurviveConcurrentEvict() throws Exception {
+        UserSummary user = new UserSummary(11L, "John Doe", "john.doe@example.com", "123", 0L);
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        // 批次匯入提交後以 evict() 清除，進行中的查詢是在提交前讀到「不存在」
+        CompletableFuture<Optional<UserSummary>> staleRead = CompletableFuture.supplyAsync(() -> userCache.get(11L, id -> {
+            loading.countDown();
+            await(release);
+            return Optional.empty();
+        }));
+        assertTrue(loading.await(5, TimeUnit.SECONDS));
+        Thread imported = startAndWaitUntilBlocked(() -> userCache.evict(11L));
+        release.countDown();
+        staleRead.get(5, TimeUnit.SECONDS);
+        imported.join(5000);
+
+        assertEquals(user, userCache.get(11L, loader(user)).orElseThrow());
+        assertEquals(1, loads.get());
+    }
+
+    // 等到寫入的執行緒完成或停在進行中的載入上，確保寫入發生在載入回來之前
+    private static Thread startAndWaitUntilBlocked(Runnable write) throws InterruptedException {
+        Thread thread = new Thread(write);
+        thread.start();
+        while (thread.getState() == Thread.State.NEW || thread.getState() == Thread.State.RUNNABLE) {
+            Thread.sleep(1);
+        }
+        return thread;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.kai.test_practice.unitTest;
+
+import com.kai.test_practice.admission.ClientRateLimiter;
+import com.kai.test_practice.config.AdmissionControlConfig;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ClientRateLimiterUnitTest {
+
+    private final AtomicLong now = new AtomicLong(); // 手動控制的時間（奈秒）
+
+    @Test
+    public void testBurstThenRefillAtConfiguredRate() {
+        ClientRateLimiter limiter = new ClientRateLimiter(10, 3, 100, Duration.ofMinutes(1), now::get);
+
+        // 可以連續取得 burst 個 token
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, limiter.tryAcquire("client"));
+        }
+        // 用完之後要等下一個 token 補上，每秒 10 個即 100 ms 一個
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(100), limiter.tryAcquire("client"));
+
+        now.addAndGet(TimeUnit.MILLISECONDS.toNanos(100));
+        assertEquals(0, limiter.tryAcquire("client"));
+        assertTrue(limiter.tryAcquire("client") > 0);
+    }
+
+    @Test
+    public void testClientsHaveIndependentBuckets() {
+        ClientRateLimiter limiter = new ClientRateLimiter(1, 1, 100, Duration.ofMinutes(1), now::get);
+
+        assertEquals(0, limiter.tryAcquire("abusive"));
+        assertTrue(limiter.tryAcquire("abusive") > 0);
+        assertEquals(0, limiter.tryAcquire("polite"));
+    }
+
+    @Test
+    public void testIdleClientsAreEvicted() {
+        ClientRateLimiter limiter = new ClientRateLimiter(10, 1, 100, Duration.ofSeconds(1), now::get);
+        limiter.tryAcquire("first");
+        limiter.tryAcquire("second");
+        assertEquals(2, limiter.trackedClients());
+
+        now.addAndGet(TimeUnit.SECONDS.toNanos(2));
+        limiter.tryAcquire("third");
+        assertEquals(1, limiter.trackedClients());
+    }
+
+    @Test
+    public void testIdleTimeoutShorterThanRefillIsRejected() {
+        // 每秒 1 個、burst 100 需要 100 秒才能補滿，提早移除會讓被限流的客戶端重新取得完整的 burst
+        assertThrows(IllegalArgumentException.class, () -> new ClientRateLimiter(1, 100, 100, Duration.ofSeconds(10)));
+    }
+
+    @Test
+    public void testClientHeaderIsRequiredWhenConfigured() {
+        // prod 未設定 client-header 時啟動失敗，避免負載平衡器後面的所有請求共用同一個遠端位址的限額
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> admissionControlConfig("", true));
+        assertTrue(exception.getMessage().contains("app.admission.rate-limit.client-header"));
+
+        // 開發環境未設定時以遠端位址區分客戶端，明確設定時正常啟動
+        admissionControlConfig("", false);
+        admissionControlConfig("X-Client-Id", true);
+    }
+
+    private AdmissionControlConfig admissionControlConfig(String clientHeader, boolean requireClientHeader) {
+        return new AdmissionControlConfig(100, 200, 100, Duration.ofMinutes(1), clientHeader, requireClientHeader,
+                100, 10, 1000, 2.0, Duration.ofSeconds(1), new SimpleMeterRegistry());
+    }
+}
@@ -0,0 +1,53 @@
+package com.kai.test_practice.unitTest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.kai.test_practice.config.GlobalExceptionHandler;
+import com.kai.test_practice.exceptions.DuplicateEmailException;
+import com.kai.test_practice.exceptions.UserNotFoundException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class GlobalExceptionHandlerUnitTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final GlobalExceptionHandler handler = new GlobalExceptionHandler(meterRegistry);
+
+    @Test
+    public void testErrorResponseKeepsJsonShape() throws Exception {
+        GlobalExceptionHandler.ErrorResponse response = handler.handleUserNotFoundException(new UserNotFoundException("User with ID 1 not found."));
+
+        // 預先編碼的欄位與一般序列化的結果相同，欄位順序也不變
+        JsonNode json = new ObjectMapper().readTree(new ObjectMapper().writeValueAsString(response));
+        List<String> fields = new ArrayList<>();
+        json.fieldNames().forEachRemaining(fields::add);
+        assertEquals(List.of("error", "httpStatus", "message", "timestamp"), fields);
+        assertEquals("User not found", json.get("error").asText());
+        assertEquals("404 NOT_FOUND", json.get("httpStatus").asText());
+        assertEquals("User with ID 1 not found.", json.get("message").asText());
+
+        // 快取的時間戳仍可解析為 LocalDateTime，並且是目前的時間
+        LocalDateTime timestamp = LocalDateTime.parse(json.get("timestamp").asText());
+        assertTrue(Duration.between(timestamp, LocalDateTime.now()).abs().toSeconds() < 5);
+        assertTrue(json.get("timestamp").asText().matches("\\d{4}-\\d{2}-\\d{2}T\\d{2}:\\d{2}:\\d{2}\\.\\d{3}"));
+    }
+
+    @Test
+    public void testBusinessExceptionsAreStackless() {
+        assertEquals(0, new UserNotFoundException("User with ID 1 not found.").getStackTrace().length);
+        assertEquals(0, new DuplicateEmailException("john.doe@example.com").getStackTrace().length);
+
+        // 重複的 email 仍以 400 的 IllegalArgumentException 處理，並依實際類型計數
+        GlobalExceptionHandler.ErrorResponse response = handler.handleIllegalArgumentException(new DuplicateEmailException("john.doe@example.com"));
+        assertEquals("Email already exists: john.doe@example.com", response.getMessage());
+        assertEquals(1.0, meterRegistry.get("users.errors").tag("exception", "DuplicateEmailException").counter().count());
+    }
+}
@@ -0,0 +1,76 @@
+package com.kai.test_practice.unitTest;
+
+import com.kai.test_practice.jdbc.ObservedDataSourcePostProcessor;
+import com.kai.test_practice.jdbc.SqlStatementMonitor;
+import com.kai.test_practice.jdbc.SqlStatementStats;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ObservedDataSourcePostProcessorUnitTest {
+
+    private final SqlStatementMonitor monitor = new SqlStatementMonitor(Duration.ofSeconds(1), 0, 16, 10, line -> {
+    });
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        monitor.shutdown();
+    }
+
+    @Test
+    public void testExecutedStatementsAreRecorded() throws SQLException {
+        DataSource dataSource = observed();
+
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("SELECT ?")) {
+            statement.setInt(1, 1);
+            statement.executeQuery().close();
+            statement.executeQuery().close();
+            // 透過 Statement 取得的連線也經過監控，不會拿到原始連線
+            assertSame(connection, statement.getConnection());
+            try (Statement other = statement.getConnection().createStatement()) {
+                assertThrows(SQLException.class, () -> other.execute("SELECT * FROM missing_table"));
+            }
+        }
+
+        List<SqlStatementStats.Snapshot> snapshot = monitor.snapshot();
+        assertEquals(2, snapshot.stream().filter(s -> s.sql().equals("SELECT ?")).findFirst().orElseThrow().count());
+        assertEquals(1, snapshot.stream().filter(s -> s.sql().equals("SELECT * FROM missing_table")).findFirst().orElseThrow().errors());
+    }
+
+    @Test
+    public void testDataSourceIsWrappedOnce() {
+        DataSource dataSource = observed();
+        ObservedDataSourcePostProcessor postProcessor = postProcessor();
+
+        assertSame(dataSource, postProcessor.postProcessAfterInitialization(dataSource, "dataSource"));
+    }
+
+    private DataSource observed() {
+        JdbcDataSource target = new JdbcDataSource();
+        target.setURL("jdbc:h2:mem:observed;DB_CLOSE_DELAY=-1");
+        return (DataSource) postProcessor().postProcessAfterInitialization(target, "dataSource");
+    }
+
+    private ObservedDataSourcePostProcessor postProcessor() {
+        @SuppressWarnings("unchecked")
+        ObjectProvider<SqlStatementMonitor> provider = mock(ObjectProvider.class);
+        when(provider.getObject()).thenReturn(monitor);
+        return new ObservedDataSourcePostProcessor(provider);
+    }
+}
@@ -0,0 +1,94 @@
+package com.kai.test_practice.unitTest;
+
+import com.kai.test_practice.datasource.DataSourceRouting;
+import com.kai.test_practice.datasource.ReplicaBalancing;
+import com.kai.test_practice.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ReplicaRoutingDataSourceUnitTest {
+
+    private final HikariDataSource primary = dataSource("primary", 0);
+
+    @AfterEach
+    public void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    // 建立一個假的連線池，連線會記住來自哪個連線池
+    private static HikariDataSource dataSource(String name, int activeConnections) {
+        HikariDataSource dataSource = Mockito.mock(HikariDataSource.class);
+        HikariPoolMXBean pool = Mockito.mock(HikariPoolMXBean.class);
+        Connection connection = Mockito.mock(Connection.class, name);
+        Mockito.when(dataSource.getPoolName()).thenReturn(name);
+        Mockito.when(dataSource.getHikariPoolMXBean()).thenReturn(pool);
+        Mockito.when(pool.getActiveConnections()).thenReturn(activeConnections);
+        try {
+            Mockito.when(dataSource.getConnection()).thenReturn(connection);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return dataSource;
+    }
+
+    private static List<String> route(ReplicaRoutingDataSource routing, int times) throws Exception {
+        List<String> targets = new ArrayList<>();
+        for (int i = 0; i < times; i++) {
+            targets.add(routing.getConnection().toString());
+        }
+        return targets;
+    }
+
+    @Test
+    public void testWritesUsePrimary() throws Exception {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, List.of(dataSource("replica-1", 0)),
+                ReplicaBalancing.ROUND_ROBIN, new SimpleMeterRegistry());
+
+        assertEquals(List.of("primary", "primary"), route(routing, 2));
+    }
+
+    @Test
+    public void testRoundRobinBetweenReplicas() throws Exception {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary,
+                List.of(dataSource("replica-1", 0), dataSource("replica-2", 0)), ReplicaBalancing.ROUND_ROBIN, new SimpleMeterRegistry());
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertEquals(List.of("replica-1", "replica-2", "replica-1", "replica-2"), route(routing, 4));
+    }
+
+    @Test
+    public void testLeastConnectionsPrefersIdleReplica() throws Exception {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary,
+                List.of(dataSource("replica-1", 5), dataSource("replica-2", 1)), ReplicaBalancing.LEAST_CONNECTIONS, new SimpleMeterRegistry());
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertEquals(List.of("replica-2", "replica-2", "replica-2"), route(routing, 3));
+    }
+
+    @Test
+    public void testPrimaryCanBeRequestedInsideReadOnlyTransaction() throws Exception {
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, List.of(dataSource("replica-1", 0)),
+                ReplicaBalancing.ROUND_ROBIN, new SimpleMeterRegistry());
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertEquals(List.of("primary"), DataSourceRouting.onPrimary(() -> {
+            try {
+                return route(routing, 1);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        }));
+        assertEquals(List.of("replica-1"), route(routing, 1));
+    }
+}
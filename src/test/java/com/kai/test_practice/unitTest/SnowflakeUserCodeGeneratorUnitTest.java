@@ -0,0 +1,117 @@
+package com.kai.test_practice.unitTest;
+
+import com.kai.test_practice.config.UserCodeGeneratorConfig;
+import com.kai.test_practice.generators.SnowflakeUserCodeGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SnowflakeUserCodeGeneratorUnitTest {
+
+    @Test
+    public void testCodesAreUniqueAcrossManyThreads() throws Exception {
+        SnowflakeUserCodeGenerator generator = new SnowflakeUserCodeGenerator(1);
+        int threads = 16;
+        int codesPerThread = 50_000;
+        Set<String> codes = ConcurrentHashMap.newKeySet();
+        CountDownLatch start = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+        try {
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    String previous = "";
+                    for (int i = 0; i < codesPerThread; i++) {
+                        String code = generator.nextCode();
+                        // 同一個執行緒看到的代碼必須嚴格遞增
+                        assertTrue(code.compareTo(previous) > 0);
+                        codes.add(code);
+                        previous = code;
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(threads * codesPerThread, codes.size());
+    }
+
+    @Test
+    public void testSequenceOverflowBorrowsNextMillisecond() {
+        // 時鐘停在同一毫秒，產生超過 4096 個代碼時仍然不能重複
+        SnowflakeUserCodeGenerator generator = new SnowflakeUserCodeGenerator(1, () -> SnowflakeUserCodeGenerator.EPOCH + 1000);
+        long previous = -1;
+        for (int i = 0; i < 10_000; i++) {
+            long id = generator.nextId();
+            assertTrue(id > previous);
+            previous = id;
+        }
+    }
+
+    @Test
+    public void testClockGoingBackwardsStaysMonotonic() {
+        long[] now = {SnowflakeUserCodeGenerator.EPOCH + 5000};
+        SnowflakeUserCodeGenerator generator = new SnowflakeUserCodeGenerator(1, () -> now[0]);
+        long first = generator.nextId();
+
+        now[0] -= 1000; // 模擬 NTP 校時造成的時鐘倒退
+        assertTrue(generator.nextId() > first);
+    }
+
+    @Test
+    public void testDifferentNodesNeverCollide() {
+        SnowflakeUserCodeGenerator node1 = new SnowflakeUserCodeGenerator(1, () -> SnowflakeUserCodeGenerator.EPOCH);
+        SnowflakeUserCodeGenerator node2 = new SnowflakeUserCodeGenerator(2, () -> SnowflakeUserCodeGenerator.EPOCH);
+
+        assertNotEquals(node1.nextCode(), node2.nextCode());
+    }
+
+    @Test
+    public void testCodeFormat() {
+        String code = new SnowflakeUserCodeGenerator(1).nextCode();
+
+        assertTrue(code.matches("USER-[0-9A-HJKMNP-TV-Z]{13}"));
+    }
+
+    @Test
+    public void testInvalidNodeId() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeUserCodeGenerator(SnowflakeUserCodeGenerator.MAX_NODE_ID + 1));
+    }
+
+    @Test
+    public void testNodeIdIsRequiredWhenConfigured() {
+        UserCodeGeneratorConfig config = new UserCodeGeneratorConfig();
+        // prod 未設定 node-id 時啟動失敗，不再以主機名稱推算可能重複的值
+        IllegalStateException exception = assertThrows(IllegalStateException.class, () -> config.userCodeGenerator(-1, true));
+        assertTrue(exception.getMessage().contains("app.users.code.node-id"));
+        assertThrows(IllegalArgumentException.class, () -> config.userCodeGenerator(SnowflakeUserCodeGenerator.MAX_NODE_ID + 1, true));
+
+        // 單節點未設定時使用 0，明確設定時使用指定的值
+        assertEquals(0, nodeIdOf((SnowflakeUserCodeGenerator) config.userCodeGenerator(-1, false)));
+        assertEquals(7, nodeIdOf((SnowflakeUserCodeGenerator) config.userCodeGenerator(7, true)));
+    }
+
+    private long nodeIdOf(SnowflakeUserCodeGenerator generator) {
+        return (generator.nextId() >>> SnowflakeUserCodeGenerator.SEQUENCE_BITS) & SnowflakeUserCodeGenerator.MAX_NODE_ID;
+    }
+}
@@ -0,0 +1,73 @@
+package com.kai.test_practice.unitTest;
+
+import com.kai.test_practice.jdbc.SqlStatementMonitor;
+import com.kai.test_practice.jdbc.SqlStatementStats;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class SqlStatementMonitorUnitTest {
+
+    private final List<String> logs = new CopyOnWriteArrayList<>();
+    private SqlStatementMonitor monitor;
+
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        monitor.shutdown();
+    }
+
+    @Test
+    public void testOnlySlowAndFailedStatementsAreLoggedWithoutSampling() throws InterruptedException {
+        monitor = new SqlStatementMonitor(Duration.ofMillis(100), 0, 16, 10, logs::add);
+
+        monitor.record("select 1", Duration.ofMillis(5).toNanos(), false);
+        monitor.record("select 2", Duration.ofMillis(150).toNanos(), false);
+        monitor.record("select 3", Duration.ofMillis(1).toNanos(), true);
+        monitor.shutdown(); // 等背景執行緒寫完
+
+        assertEquals(List.of("slow 150.000 ms: select 2", "failed 1.000 ms: select 3"), logs);
+    }
+
+    @Test
+    public void testStatisticsAreAggregatedPerStatement() {
+        monitor = new SqlStatementMonitor(Duration.ofSeconds(1), 0, 16, 10, logs::add);
+
+        monitor.record("select 1", Duration.ofMillis(2).toNanos(), false);
+        monitor.record("select 1", Duration.ofMillis(4).toNanos(), true);
+        monitor.record("select 2", Duration.ofMillis(1).toNanos(), false);
+
+        List<SqlStatementStats.Snapshot> snapshot = monitor.snapshot();
+        assertEquals(new SqlStatementStats.Snapshot("select 1", 2, 1, 6.0, 3.0, 4.0), snapshot.get(0)); // 依總耗時排序
+        assertEquals("select 2", snapshot.get(1).sql());
+
+        monitor.reset();
+        assertTrue(monitor.snapshot().isEmpty());
+    }
+
+    @Test
+    public void testDistinctStatementsAreBoundedAndFullBufferDropsLogs() {
+        // 背景執行緒寫 log 時卡住，緩衝區很快就會滿
+        monitor = new SqlStatementMonitor(Duration.ZERO, 0, 1, 2, line -> {
+            try {
+                Thread.sleep(200);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        for (int i = 0; i < 10; i++) {
+            monitor.record("select " + i, 1_000, false);
+        }
+
+        List<SqlStatementStats.Snapshot> snapshot = monitor.snapshot();
+        assertEquals(3, snapshot.size()); // 兩種 SQL 加上合併的其他敘述
+        assertEquals(8, snapshot.stream().filter(s -> s.sql().equals("(other statements)")).findFirst().orElseThrow().count());
+        assertTrue(monitor.droppedLogs() >= 8);
+    }
+}
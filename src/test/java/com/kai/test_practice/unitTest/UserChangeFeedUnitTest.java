@@ -0,0 +1,105 @@
+package com.kai.test_practice.unitTest;
+
+import com.kai.test_practice.entities.UserSummary;
+import com.kai.test_practice.events.UserChangeFeed;
+import com.kai.test_practice.exceptions.TooManyRequestsException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class UserChangeFeedUnitTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    public void testResumeReplaysEventsAfterLastEventId() throws InterruptedException {
+        UserChangeFeed feed = new UserChangeFeed(4, 8, 10, meterRegistry);
+        for (long id = 1; id <= 6; id++) {
+            feed.publish(user(id));
+        }
+
+        // id 3 還在保留的 3~6 之中，只補送之後的事件
+        UserChangeFeed.Subscription resumed = feed.subscribe(3L);
+        assertFalse(resumed.needsCatchUp());
+        assertEquals(List.of(4L, 5L, 6L), resumed.missed().stream().map(UserSummary::id).toList());
+
+        // id 1 已被覆蓋，需要從資料庫補送
+        UserChangeFeed.Subscription stale = feed.subscribe(1L);
+        assertTrue(stale.needsCatchUp());
+        assertTrue(stale.missed().isEmpty());
+
+        // 沒有 Last-Event-ID 時只接收新事件
+        UserChangeFeed.Subscription live = feed.subscribe(null);
+        assertFalse(live.needsCatchUp());
+        assertNull(live.poll(Duration.ZERO));
+        feed.publish(user(7));
+        assertEquals(7L, live.poll(Duration.ZERO).id());
+        assertEquals(7L, resumed.poll(Duration.ZERO).id());
+    }
+
+    @Test
+    public void testCloseWakesUpWaitingPoll() throws Exception {
+        UserChangeFeed feed = new UserChangeFeed(4, 8, 10, meterRegistry);
+        UserChangeFeed.Subscription subscription = feed.subscribe(null);
+
+        // 關閉後等待中的 poll 立即返回，送出執行緒不必等到心跳間隔結束
+        Thread closer = new Thread(() -> {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            subscription.close();
+        });
+        closer.start();
+        long start = System.nanoTime();
+        assertNull(subscription.poll(Duration.ofSeconds(30)));
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(10)) < 0);
+        assertTrue(subscription.isClosed());
+        closer.join();
+    }
+
+    @Test
+    public void testSlowSubscriberIsDroppedWithoutBlockingPublisher() throws InterruptedException {
+        UserChangeFeed feed = new UserChangeFeed(16, 2, 10, meterRegistry);
+        UserChangeFeed.Subscription slow = feed.subscribe(null);
+        UserChangeFeed.Subscription fast = feed.subscribe(null);
+
+        for (long id = 1; id <= 3; id++) {
+            feed.publish(user(id));
+            // fast 每次都取走事件，slow 從不讀取
+            assertEquals(id, fast.poll(Duration.ZERO).id());
+        }
+
+        // 第 3 筆放不進 slow 的佇列，slow 被斷開，其他訂閱者不受影響
+        assertTrue(slow.isDropped());
+        assertTrue(slow.isClosed());
+        assertFalse(fast.isDropped());
+        assertEquals(1, feed.subscriberCount());
+        assertEquals(1.0, meterRegistry.counter("users.changes.dropped").count());
+    }
+
+    @Test
+    public void testSubscriberLimit() {
+        UserChangeFeed feed = new UserChangeFeed(16, 2, 1, meterRegistry);
+        UserChangeFeed.Subscription subscription = feed.subscribe(null);
+        assertThrows(TooManyRequestsException.class, () -> feed.subscribe(null));
+
+        // 關閉後釋出名額
+        subscription.close();
+        feed.subscribe(null);
+        assertEquals(1, feed.subscriberCount());
+    }
+
+    private UserSummary user(long id) {
+        return new UserSummary(id, "User " + id, "user" + id + "@example.com", "code" + id, 0L);
+    }
+}
@@ -3,6 +3,8 @@ package com.kai.test_practice.unitTest;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.kai.test_practice.entities.CreateUserRequest;
 import com.kai.test_practice.entities.User;
+import com.kai.test_practice.entities.UserPage;
+import com.kai.test_practice.entities.UserSummary;
 import com.kai.test_practice.services.UserService;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -11,6 +13,7 @@ import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
@@ -20,6 +23,7 @@ import java.util.List;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -40,7 +44,7 @@ public class UserControllerUnitTest {
     private UserService mockUserService;
 
     private User mockUser; // 用於測試的模擬數據，代表一個單一的 User 實例。
-    private List<User> mockUsers; // 用於測試的模擬數據列表，代表多個 User 實例。
+    private List<UserSummary> mockUsers; // 用於測試的模擬數據列表，代表多個使用者的投影。
 
     @BeforeEach // 在每個測試方法執行之前執行，用於初始化測試所需的數據或狀態。
     public void setUp() {
@@ -54,13 +58,13 @@ public class UserControllerUnitTest {
 
         // 初始化模擬使用者列表
         mockUsers = Arrays.asList(
-                mockUser,
-                User.builder().id(2L).name("Jane Smith").email("jane.smith@example.com").code("456").build()
+                UserSummary.from(mockUser),
+                UserSummary.from(User.builder().id(2L).name("Jane Smith").email("jane.smith@example.com").code("456").build())
         );
 
         // 使用 Mockito 模擬 Service 層的行為
-        Mockito.when(mockUserService.getUserById(1L)).thenReturn(mockUser);
-        Mockito.when(mockUserService.getAllUsers()).thenReturn(mockUsers);
+        Mockito.when(mockUserService.getUserById(1L)).thenReturn(UserSummary.from(mockUser));
+        Mockito.when(mockUserService.getUsersPage(0L, UserService.DEFAULT_PAGE_LIMIT)).thenReturn(UserPage.of(mockUsers));
     }
 
     @AfterEach // 在每個測試方法執行之後執行，用於清理測試環境或重置狀態。
@@ -79,7 +83,7 @@ public class UserControllerUnitTest {
                 .build();
 
         // 模擬 Service 層的行為
-        Mockito.when(mockUserService.getUserById(1L)).thenReturn(mockUser);
+        Mockito.when(mockUserService.getUserById(1L)).thenReturn(UserSummary.from(mockUser));
 
         // 使用 MockMvc 發送 GET 請求，並驗證返回結果
         mockMvc.perform(get("/users/1")) // 模擬對 "/users/1" 的 GET 請求
@@ -104,13 +108,13 @@ public class UserControllerUnitTest {
     @Test // 標註這是一個測試方法，用於測試獲取所有使用者的功能。
     public void testGetAllUsers() throws Exception {
         // 準備模擬的使用者列表
-        List<User> mockUsers = Arrays.asList(
-                User.builder().id(1L).name("John Doe").email("john.doe@example.com").code("123").build(),
-                User.builder().id(2L).name("Jane Smith").email("jane.smith@example.com").code("456").build()
+        List<UserSummary> mockUsers = Arrays.asList(
+                new UserSummary(1L, "John Doe", "john.doe@example.com", "123", 0L),
+                new UserSummary(2L, "Jane Smith", "jane.smith@example.com", "456", 0L)
         );
 
         // 模擬 Service 層的行為
-        Mockito.when(mockUserService.getAllUsers()).thenReturn(mockUsers);
+        Mockito.when(mockUserService.getUsersPage(0L, UserService.DEFAULT_PAGE_LIMIT)).thenReturn(UserPage.of(mockUsers));
 
         // 使用 MockMvc 發送 GET 請求，並驗證返回結果
         mockMvc.perform(get("/users")) // 模擬對 "/users" 的 GET 請求
@@ -121,6 +125,43 @@ public class UserControllerUnitTest {
                 .andExpect(jsonPath("$[1].name").value("Jane Smith")); // 驗證第二個使用者的 name 為 "Jane Smith"
     }
 
+    @Test
+    public void testGetUsersNotModifiedWithoutLoadingPage() throws Exception {
+        Mockito.when(mockUserService.getUsersVersion(0L, UserService.DEFAULT_PAGE_LIMIT)).thenReturn("2-2-0");
+
+        // 聚合版本相符時直接回傳 304，不讀取該頁資料
+        mockMvc.perform(get("/users").header(HttpHeaders.IF_NONE_MATCH, "W/\"2-2-0\""))
+                .andExpect(status().isNotModified());
+        Mockito.verify(mockUserService, Mockito.never()).getUsersPage(Mockito.any(), Mockito.anyInt());
+    }
+
+    @Test
+    public void testGetUsersETagComesFromLoadedPage() throws Exception {
+        // 兩次讀取之間有寫入，聚合版本與讀出的資料不同時，ETag 以讀出的資料為準
+        Mockito.when(mockUserService.getUsersVersion(0L, UserService.DEFAULT_PAGE_LIMIT)).thenReturn("1-1-0");
+
+        mockMvc.perform(get("/users").header(HttpHeaders.IF_NONE_MATCH, "W/\"0-0-0\""))
+                .andExpect(status().isOk())
+                .andExpect(header().stringValues(HttpHeaders.ETAG, "W/\"2-2-0\""))
+                .andExpect(jsonPath("$.length()").value(2));
+    }
+
+    @Test // 標註這是一個測試方法，用於測試只回傳指定欄位的功能。
+    public void testGetAllUsersWithFields() throws Exception {
+        // 使用 fields 參數只取得 id 與 name
+        mockMvc.perform(get("/users").param("fields", "id,name"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].id").value(1L)) // 驗證指定的欄位存在
+                .andExpect(jsonPath("$[0].name").value("John Doe"))
+                .andExpect(jsonPath("$[0].email").doesNotExist()) // 驗證未指定的欄位不會輸出
+                .andExpect(jsonPath("$[0].code").doesNotExist());
+
+        // 不存在的欄位回傳 400
+        mockMvc.perform(get("/users").param("fields", "password"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.message").value("Unknown field: password"));
+    }
+
     @Test // 標註這是一個測試方法，用於測試創建新使用者的功能。
     public void testCreateUser() throws Exception {
         // 構造請求和回應對象